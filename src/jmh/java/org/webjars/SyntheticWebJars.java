@@ -0,0 +1,99 @@
+package org.webjars;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.stream.Stream;
+import java.util.zip.ZipException;
+
+/**
+ * Generates a classpath of WebJar jars for benchmarks.
+ *
+ * <p>Every jar contains the {@code pom.properties} and a single file of one official WebJar named {@code webjar-<i>} with the version {@code 1.<i>.0}.
+ * Additionally, one jar contains a {@code webjars-locator.properties} registering {@code custom-<i>} WebJars, which are present as well.
+ */
+final class SyntheticWebJars implements AutoCloseable {
+
+    private final Path directory;
+    private final URLClassLoader loader;
+
+    SyntheticWebJars(final int webJarCount, final int customWebJarCount) throws IOException {
+        this.directory = Files.createTempDirectory("webjars-benchmark");
+        final URL[] urls = new URL[webJarCount + 1];
+        for (int i = 0; i < webJarCount; i++) {
+            final String name = webJarName(i);
+            final String version = version(i);
+            final Path jar = directory.resolve(name + "-" + version + ".jar");
+            try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar), manifest())) {
+                write(out, "META-INF/maven/org.webjars/" + name + "/pom.properties", "groupId=org.webjars\nartifactId=" + name + "\nversion=" + version + "\n");
+                write(out, WebJarVersionLocator.WEBJARS_PATH_PREFIX + "/" + name + "/" + version + "/" + name + ".js", "// " + name + "\n");
+            }
+            urls[i] = jar.toUri().toURL();
+        }
+
+        final Path customJar = directory.resolve("custom.jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(customJar), manifest())) {
+            final StringBuilder properties = new StringBuilder();
+            for (int i = 0; i < customWebJarCount; i++) {
+                properties.append("custom-").append(i).append(".version=").append(version(i)).append('\n');
+                write(out, WebJarVersionLocator.WEBJARS_PATH_PREFIX + "/custom-" + i + "/" + version(i) + "/custom.js", "// custom\n");
+            }
+            write(out, "META-INF/resources/webjars-locator.properties", properties.toString());
+        }
+        urls[webJarCount] = customJar.toUri().toURL();
+
+        this.loader = new URLClassLoader(urls, null);
+    }
+
+    static String webJarName(final int i) {
+        return "webjar-" + i;
+    }
+
+    static String version(final int i) {
+        return "1." + i + ".0";
+    }
+
+    ClassLoader loader() {
+        return loader;
+    }
+
+    @Override
+    public void close() throws IOException {
+        loader.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static Manifest manifest() {
+        final Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        return manifest;
+    }
+
+    /**
+     * Writes a file and, like jars built by Maven, entries for all of its parent directories.
+     */
+    private static void write(final JarOutputStream out, final String name, final String content) throws IOException {
+        for (int slash = name.indexOf('/'); slash > 0; slash = name.indexOf('/', slash + 1)) {
+            try {
+                out.putNextEntry(new JarEntry(name.substring(0, slash + 1)));
+                out.closeEntry();
+            } catch (ZipException ignored) {
+                // directory entry has already been written
+            }
+        }
+        out.putNextEntry(new JarEntry(name));
+        out.write(content.getBytes(StandardCharsets.UTF_8));
+        out.closeEntry();
+    }
+
+}
@@ -0,0 +1,136 @@
+package org.webjars;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of {@link WebJarVersionLocator} against a synthetic classpath of generated WebJar jars.
+ *
+ * <p>Run with {@code mvn -Pjmh test-compile exec:exec}, JMH options can be passed with {@code -Djmh.args="..."},
+ * e.g. {@code -Djmh.args="-prof gc WebJarVersionLocatorBenchmark.warm"} for allocation rates of the warm lookups.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WebJarVersionLocatorBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Classpath {
+
+        @Param("300")
+        public int webJarCount;
+
+        @Param("50")
+        public int customWebJarCount;
+
+        SyntheticWebJars webJars;
+        WebJarVersionLocator warmLocator;
+        String hitName;
+        String hitFile;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            webJars = new SyntheticWebJars(webJarCount, customWebJarCount);
+            warmLocator = newLocator();
+            hitName = SyntheticWebJars.webJarName(webJarCount / 2);
+            hitFile = hitName + ".js";
+            warmLocator.version(hitName);
+            warmLocator.version("missing");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            webJars.close();
+        }
+
+        WebJarVersionLocator newLocator() {
+            return new WebJarVersionLocator(webJars.loader(), new WebJarCacheDefault(new ConcurrentHashMap<>()));
+        }
+    }
+
+    /**
+     * A locator with an empty cache for every invocation, so that lookups have to probe the classpath.
+     */
+    @State(Scope.Thread)
+    public static class ColdLocator {
+
+        WebJarVersionLocator locator;
+        int next;
+
+        @Setup(Level.Invocation)
+        public void setUp(final Classpath classpath) {
+            locator = classpath.newLocator();
+            next = (next + 1) % classpath.webJarCount;
+        }
+    }
+
+    @Benchmark
+    public WebJarVersionLocator constructor(final Classpath classpath) {
+        return classpath.newLocator();
+    }
+
+    @Benchmark
+    public String coldVersion(final ColdLocator cold) {
+        return cold.locator.version(SyntheticWebJars.webJarName(cold.next));
+    }
+
+    @Benchmark
+    public String coldVersionMiss(final ColdLocator cold) {
+        return cold.locator.version("missing");
+    }
+
+    @Benchmark
+    public String warmVersion(final Classpath classpath) {
+        return classpath.warmLocator.version(classpath.hitName);
+    }
+
+    @Benchmark
+    public String warmVersionMiss(final Classpath classpath) {
+        return classpath.warmLocator.version("missing");
+    }
+
+    @Benchmark
+    public String warmGroupId(final Classpath classpath) {
+        return classpath.warmLocator.groupId(classpath.hitName);
+    }
+
+    @Benchmark
+    public String warmPath(final Classpath classpath) {
+        return classpath.warmLocator.path(classpath.hitName, classpath.hitFile);
+    }
+
+    @Benchmark
+    public String warmFullPath(final Classpath classpath) {
+        return classpath.warmLocator.fullPath(classpath.hitName, classpath.hitFile);
+    }
+
+    @Benchmark
+    public String warmFullPathMiss(final Classpath classpath) {
+        return classpath.warmLocator.fullPath("missing", classpath.hitFile);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String warmFullPathContended(final Classpath classpath) {
+        return classpath.warmLocator.fullPath(classpath.hitName, classpath.hitFile);
+    }
+
+}
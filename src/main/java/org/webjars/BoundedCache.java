@@ -0,0 +1,126 @@
+package org.webjars;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * A size-limited map with a frequency and recency aware eviction policy.
+ *
+ * <p>Entries are kept in insertion order and each entry counts how often it has been read (up to {@link BoundedCache#MAXIMUM_FREQUENCY}).
+ * When the cache is full, the oldest entry is evicted if it has not been read since it was last considered for eviction,
+ * otherwise its count is decreased and it is moved to the end of the queue (a "second chance").
+ * Entries read frequently therefore survive a flood of entries that are read only once.
+ *
+ * <p>By default, the cache holds a maximum number of entries. With a weigher, it instead limits the total weight of its entries, e.g. their size in bytes.
+ *
+ * <p>The class is thread safe. Reads do not lock, so that hits of a shared cache do not contend, only writes and evictions are serialized.
+ * Read counts are updated without synchronization, a concurrent read may be missed, which only makes the eviction policy slightly less accurate.
+ *
+ * @param <K> The type of the keys
+ * @param <V> The type of the values
+ */
+@NullMarked
+final class BoundedCache<K, V> {
+
+    private static final int MAXIMUM_FREQUENCY = 3;
+
+    private final long maximumWeight;
+    private final ToLongFunction<V> weigher;
+    private final ConcurrentHashMap<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+    private final ArrayDeque<Entry<K, V>> queue = new ArrayDeque<>();
+    private long weight;
+
+    BoundedCache(final int maximumSize) {
+        this(maximumSize, value -> 1);
+    }
+
+    /**
+     * Creates a cache limiting the total weight of its entries.
+     *
+     * @param maximumWeight The maximum total weight
+     * @param weigher       Computes the weight of a value, must not change for a value
+     */
+    BoundedCache(final long maximumWeight, final ToLongFunction<V> weigher) {
+        if (maximumWeight < 1) {
+            throw new IllegalArgumentException("maximum size must be positive");
+        }
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+    }
+
+    @Nullable
+    V get(final K key) {
+        final Entry<K, V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        final int frequency = entry.frequency;
+        // only written below the maximum, so that frequently read entries are not written by every read
+        if (frequency < MAXIMUM_FREQUENCY) {
+            entry.frequency = frequency + 1;
+        }
+        return entry.value;
+    }
+
+    synchronized void put(final K key, final V value) {
+        final long valueWeight = weigher.applyAsLong(value);
+        if (valueWeight > maximumWeight) {
+            return;
+        }
+        final Entry<K, V> existing = entries.get(key);
+        if (existing != null) {
+            weight += valueWeight - existing.weight;
+            existing.value = value;
+            existing.weight = valueWeight;
+        } else {
+            final Entry<K, V> entry = new Entry<>(key, value, valueWeight);
+            entries.put(key, entry);
+            queue.addLast(entry);
+            weight += valueWeight;
+        }
+        while (weight > maximumWeight) {
+            evict();
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    synchronized long weight() {
+        return weight;
+    }
+
+    private void evict() {
+        while (true) {
+            final Entry<K, V> eldest = queue.removeFirst();
+            final int frequency = eldest.frequency;
+            if (frequency == 0) {
+                entries.remove(eldest.key);
+                weight -= eldest.weight;
+                return;
+            }
+            eldest.frequency = frequency - 1;
+            queue.addLast(eldest);
+        }
+    }
+
+    private static final class Entry<K, V> {
+        final K key;
+        volatile V value;
+        // guarded by the cache
+        long weight;
+        volatile int frequency;
+
+        Entry(final K key, final V value, final long weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package org.webjars;
+
+import org.jspecify.annotations.NullMarked;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Ensures that at most one load per key runs at a time.
+ *
+ * <p>The first caller for a key runs the loader on its own thread, without holding any lock.
+ * Concurrent callers for the same key wait for and share its result, while loads for different keys proceed in parallel.
+ *
+ * @param <V> The type of the loaded values
+ */
+@NullMarked
+final class SingleFlight<V> {
+
+    private final ConcurrentMap<String, Flight<V>> inFlight = new ConcurrentHashMap<>();
+
+    V load(final String key, final Function<String, V> loader) {
+        final Flight<V> flight = new Flight<>();
+        final Flight<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            if (existing.owner == Thread.currentThread()) {
+                throw new IllegalStateException("Recursive load of " + key);
+            }
+            return existing.await();
+        }
+
+        try {
+            final V value = loader.apply(key);
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    private static final class Flight<V> extends CompletableFuture<V> {
+        final Thread owner = Thread.currentThread();
+
+        V await() {
+            try {
+                return join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw e;
+            }
+        }
+    }
+
+}
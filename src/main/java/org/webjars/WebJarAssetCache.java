@@ -0,0 +1,134 @@
+package org.webjars;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+/**
+ * Caches the content of small WebJar files in memory, e.g. to serve frequently requested files without reading them from the classpath every time.
+ *
+ * <p>The files of a WebJar never change for a given version, so content is cached by the versioned path of the file and never expires.
+ * Files larger than {@code maximumFileBytes} are not cached, and the total size of all cached files is limited to {@code maximumBytes},
+ * evicting files like the misses of {@link WebJarVersionLocator#withBoundedCache(int)}. Every cached file, existing or not, is accounted with
+ * a small overhead in addition to its size, so that lookups of missing files cannot fill the cache without bound.
+ *
+ * <p>The content is held in read-only buffers, optionally allocated outside the heap. Every lookup returns a duplicate of the cached buffer,
+ * sharing its content without copying, so callers can consume it independently, e.g. by writing it to a channel.
+ *
+ * <pre>{@code
+ * WebJarAssetCache assets = new WebJarAssetCache(locator, 16 * 1024 * 1024, 256 * 1024, true);
+ * ByteBuffer content = assets.content("jquery", "jquery.min.js");
+ * }</pre>
+ *
+ * <p>The class is thread safe.
+ */
+@NullMarked
+public final class WebJarAssetCache {
+
+    /**
+     * The approximate memory used by a cache entry in addition to the file content.
+     */
+    private static final int ENTRY_OVERHEAD = 128;
+    private static final int BUFFER_SIZE = 8192;
+
+    private final WebJarVersionLocator locator;
+    private final int maximumFileBytes;
+    private final boolean direct;
+    private final BoundedCache<String, Optional<ByteBuffer>> contents;
+    private final SingleFlight<Optional<ByteBuffer>> loads = new SingleFlight<>();
+
+    /**
+     * Creates a content cache for the files of the WebJars found by a locator.
+     *
+     * @param locator          The locator resolving the versions of the WebJars
+     * @param maximumBytes     The maximum total size of the cached files, must be positive
+     * @param maximumFileBytes The maximum size of a single cached file, larger files are not cached
+     * @param direct           If the content is held in direct buffers, outside the heap
+     */
+    public WebJarAssetCache(final WebJarVersionLocator locator, final long maximumBytes, final int maximumFileBytes, final boolean direct) {
+        this.locator = locator;
+        this.maximumFileBytes = maximumFileBytes;
+        this.direct = direct;
+        this.contents = new BoundedCache<>(maximumBytes, content -> ENTRY_OVERHEAD + content.map(ByteBuffer::capacity).orElse(0));
+    }
+
+    /**
+     * Returns the content of a file of a WebJar, reading the file if its content is not cached.
+     *
+     * @param webJarName The name of the WebJar
+     * @param filePath   The path of the file within the WebJar
+     * @return A read-only buffer with the content of the file, or {@code null} if the WebJar or the file has not been found,
+     * or the file is larger than {@code maximumFileBytes} and has to be read from the classpath instead
+     */
+    @Nullable
+    public ByteBuffer content(final String webJarName, final String filePath) {
+        final String fullPath = locator.fullPath(webJarName, filePath);
+        if (fullPath == null) {
+            return null;
+        }
+        Optional<ByteBuffer> content = contents.get(fullPath);
+        if (content == null) {
+            content = loads.load(fullPath, path -> {
+                final Optional<ByteBuffer> existing = contents.get(path);
+                if (existing != null) {
+                    return existing;
+                }
+                final Optional<ByteBuffer> read = read(path);
+                contents.put(path, read);
+                return read;
+            });
+        }
+        return content.map(ByteBuffer::duplicate).orElse(null);
+    }
+
+    /**
+     * @return The total size of the cached files, including the overhead of every entry
+     */
+    long weight() {
+        return contents.weight();
+    }
+
+    private Optional<ByteBuffer> read(final String fullPath) {
+        final URL resource = locator.loader().getResource(fullPath);
+        if (resource == null) {
+            return Optional.empty();
+        }
+        try {
+            final URLConnection connection = resource.openConnection();
+            if (connection.getContentLengthLong() > maximumFileBytes) {
+                return Optional.empty();
+            }
+            final ByteArrayOutputStream content = new ByteArrayOutputStream();
+            try (InputStream input = connection.getInputStream()) {
+                final byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = input.read(buffer)) >= 0) {
+                    content.write(buffer, 0, read);
+                    if (content.size() > maximumFileBytes) {
+                        return Optional.empty();
+                    }
+                }
+            }
+            final ByteBuffer buffer;
+            if (direct) {
+                buffer = ByteBuffer.allocateDirect(content.size());
+                buffer.put(content.toByteArray());
+                buffer.flip();
+            } else {
+                buffer = ByteBuffer.wrap(content.toByteArray());
+            }
+            return Optional.of(buffer.asReadOnlyBuffer());
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to read " + fullPath, e);
+        }
+    }
+
+}
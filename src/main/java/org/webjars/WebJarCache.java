@@ -2,6 +2,7 @@ package org.webjars;
 
 
 import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
 
 import java.util.Optional;
 import java.util.function.Function;
@@ -9,11 +10,32 @@ import java.util.function.Function;
 /**
  * WebJar Locator Cache Interface
  * Since classpath resources are essentially immutable, the WebJarsCache does not have the concept of expiry.
- * Cache keys and values are Strings because that is all that is needed.
+ * Cache keys are WebJar names, values hold everything known about a WebJar, so that a single entry serves all lookups of it.
  */
 @NullMarked
 interface WebJarCache {
 
-    Optional<String> computeIfAbsent(String key, Function<String, Optional<String>> function);
+    /**
+     * Returns the cached value for the key, computing it with the given function if it is not cached yet.
+     *
+     * <p>Implementations must not hold any lock shared with other keys while the function runs, as it usually performs class loader I/O.
+     * At most one computation per key may run at a time, concurrent callers for the same key wait for and share its result.
+     *
+     * @param key      The cache key
+     * @param function Computes the value for the key if it is not cached
+     * @return The cached or computed value
+     */
+    Optional<WebJarInfo> computeIfAbsent(String key, Function<String, Optional<WebJarInfo>> function);
+
+    /**
+     * Returns the cached value for the key, without computing it.
+     *
+     * @param key The cache key
+     * @return The cached value, or {@code null} if the key is not cached or the implementation does not support peeking into the cache
+     */
+    @Nullable
+    default Optional<WebJarInfo> getIfPresent(String key) {
+        return null;
+    }
 
 }
@@ -0,0 +1,63 @@
+package org.webjars;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * WebJar Locator Cache that limits the number of cached misses.
+ *
+ * <p>Found values are bounded by the WebJars on the classpath and are always kept.
+ * Misses, however, depend on the names being looked up, which may come from untrusted input like request URLs.
+ * They are kept in a {@link BoundedCache} holding at most {@code maximumMisses} entries.
+ */
+@NullMarked
+class WebJarCacheBounded implements WebJarCache {
+
+    final ConcurrentMap<String, Optional<WebJarInfo>> found = new ConcurrentHashMap<>();
+    final BoundedCache<String, Optional<WebJarInfo>> misses;
+    private final SingleFlight<Optional<WebJarInfo>> loads = new SingleFlight<>();
+
+    WebJarCacheBounded(final int maximumMisses) {
+        this.misses = new BoundedCache<>(maximumMisses);
+    }
+
+    @Override
+    public Optional<WebJarInfo> computeIfAbsent(String key, Function<String, Optional<WebJarInfo>> function) {
+        final Optional<WebJarInfo> cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        return loads.load(key, k -> {
+            // another load may have completed between the check above and starting this one
+            final Optional<WebJarInfo> existing = get(k);
+            if (existing != null) {
+                return existing;
+            }
+            final Optional<WebJarInfo> value = function.apply(k);
+            if (value.isPresent()) {
+                final Optional<WebJarInfo> raced = found.putIfAbsent(k, value);
+                return raced != null ? raced : value;
+            }
+            misses.put(k, value);
+            return value;
+        });
+    }
+
+    @Override
+    @Nullable
+    public Optional<WebJarInfo> getIfPresent(String key) {
+        return get(key);
+    }
+
+    @Nullable
+    private Optional<WebJarInfo> get(final String key) {
+        final Optional<WebJarInfo> value = found.get(key);
+        return value != null ? value : misses.get(key);
+    }
+
+}
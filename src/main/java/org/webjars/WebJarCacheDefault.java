@@ -1,6 +1,7 @@
 package org.webjars;
 
 import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
 
 import java.util.Optional;
 import java.util.concurrent.ConcurrentMap;
@@ -10,15 +11,35 @@ import java.util.function.Function;
 @NullMarked
 class WebJarCacheDefault implements WebJarCache {
 
-    final ConcurrentMap<String, Optional<String>> cache;
+    final ConcurrentMap<String, Optional<WebJarInfo>> cache;
+    private final SingleFlight<Optional<WebJarInfo>> loads = new SingleFlight<>();
 
-    public WebJarCacheDefault(ConcurrentMap<String, Optional<String>> cache) {
+    public WebJarCacheDefault(ConcurrentMap<String, Optional<WebJarInfo>> cache) {
         this.cache = cache;
     }
 
     @Override
-    public Optional<String> computeIfAbsent(String key, Function<String, Optional<String>> function) {
-        return cache.computeIfAbsent(key, function);
+    public Optional<WebJarInfo> computeIfAbsent(String key, Function<String, Optional<WebJarInfo>> function) {
+        final Optional<WebJarInfo> cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        return loads.load(key, k -> {
+            // another load may have completed between the check above and starting this one
+            final Optional<WebJarInfo> existing = cache.get(k);
+            if (existing != null) {
+                return existing;
+            }
+            final Optional<WebJarInfo> value = function.apply(k);
+            final Optional<WebJarInfo> raced = cache.putIfAbsent(k, value);
+            return raced != null ? raced : value;
+        });
+    }
+
+    @Override
+    @Nullable
+    public Optional<WebJarInfo> getIfPresent(String key) {
+        return cache.get(key);
     }
 
 }
@@ -0,0 +1,174 @@
+package org.webjars;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Computes and caches the SHA-256 digests of WebJar files, e.g. to send {@code ETag} headers.
+ *
+ * <p>The files of a WebJar never change for a given version, so digests are cached by the versioned path of the file and never expire.
+ * Every file is read once, computing its digest and size in a single pass. To keep memory bounded when file paths come from untrusted input,
+ * the cache holds at most {@code maximumSize} digests, evicted like the misses of {@link WebJarVersionLocator#withBoundedCache(int)}.
+ *
+ * <pre>{@code
+ * WebJarDigests digests = new WebJarDigests(locator, 10_000);
+ * WebJarDigests.Digest digest = digests.digest("bootstrap", "css/bootstrap.css");
+ * response.setHeader("ETag", digest.getETag());
+ * }</pre>
+ *
+ * <p>The class is thread safe.
+ */
+@NullMarked
+public final class WebJarDigests {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final WebJarVersionLocator locator;
+    private final BoundedCache<String, Optional<Digest>> digests;
+    private final SingleFlight<Optional<Digest>> loads = new SingleFlight<>();
+
+    /**
+     * Creates a digest cache for the files of the WebJars found by a locator.
+     *
+     * @param locator     The locator resolving the versions of the WebJars
+     * @param maximumSize The maximum number of cached digests, must be positive
+     */
+    public WebJarDigests(final WebJarVersionLocator locator, final int maximumSize) {
+        this.locator = locator;
+        this.digests = new BoundedCache<>(maximumSize);
+    }
+
+    /**
+     * Returns the digest of a file of a WebJar, reading the file if its digest is not cached.
+     *
+     * @param webJarName The name of the WebJar
+     * @param filePath   The path of the file within the WebJar
+     * @return The digest of the file, or {@code null} if the WebJar or the file has not been found
+     */
+    @Nullable
+    public Digest digest(final String webJarName, final String filePath) {
+        final String fullPath = locator.fullPath(webJarName, filePath);
+        return fullPath != null ? digest(fullPath).orElse(null) : null;
+    }
+
+    /**
+     * Computes the digests of all files of a WebJar in parallel and adds them to the cache.
+     *
+     * <p>Only as many digests as fit into the cache are kept, but all are returned.
+     * Files in classpath roots that cannot be listed, e.g. {@code vfs:} URLs of application servers or the resources of GraalVM native images,
+     * are not included.
+     *
+     * @param webJarName The name of the WebJar
+     * @return The digests keyed by the versioned path of every file, empty if the WebJar has not been found
+     */
+    public Map<String, Digest> precompute(final String webJarName) {
+        final List<String> files = locator.files(webJarName);
+        final String prefix = locator.fullPath(webJarName, "");
+        if (prefix == null || files.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+        return files.parallelStream()
+                .map(file -> digest(prefix + file))
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(Collectors.toMap(Digest::getFullPath, digest -> digest, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    private Optional<Digest> digest(final String fullPath) {
+        final Optional<Digest> cached = digests.get(fullPath);
+        if (cached != null) {
+            return cached;
+        }
+        return loads.load(fullPath, path -> {
+            final Optional<Digest> existing = digests.get(path);
+            if (existing != null) {
+                return existing;
+            }
+            final Optional<Digest> digest = read(path);
+            digests.put(path, digest);
+            return digest;
+        });
+    }
+
+    private Optional<Digest> read(final String fullPath) {
+        final MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream resource = locator.loader().getResourceAsStream(fullPath)) {
+            if (resource == null) {
+                return Optional.empty();
+            }
+            final byte[] buffer = new byte[BUFFER_SIZE];
+            long size = 0;
+            int read;
+            while ((read = resource.read(buffer)) >= 0) {
+                sha256.update(buffer, 0, read);
+                size += read;
+            }
+            return Optional.of(new Digest(fullPath, sha256.digest(), size));
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to read " + fullPath, e);
+        }
+    }
+
+    /**
+     * The digest of a WebJar file.
+     */
+    public static final class Digest {
+        private final String fullPath;
+        private final byte[] sha256;
+        private final long size;
+        private final String eTag;
+
+        Digest(final String fullPath, final byte[] sha256, final long size) {
+            this.fullPath = fullPath;
+            this.sha256 = sha256;
+            this.size = size;
+            this.eTag = '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(sha256) + '"';
+        }
+
+        /**
+         * @return The versioned path of the file in the classpath
+         */
+        public String getFullPath() {
+            return fullPath;
+        }
+
+        /**
+         * @return The SHA-256 digest of the file content
+         */
+        public byte[] getSha256() {
+            return sha256.clone();
+        }
+
+        /**
+         * @return The size of the file in bytes
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * @return A strong entity tag for the file, the quoted, URL-safe Base64 encoded SHA-256 digest
+         */
+        public String getETag() {
+            return eTag;
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+package org.webjars;
+
+import org.jspecify.annotations.NullMarked;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The executor running the asynchronous operations of {@link WebJarVersionLocator}.
+ *
+ * <p>On Java 21 and later, every task runs on its own virtual thread. On older versions, tasks run on a small pool of daemon threads,
+ * which terminate when idle. The executor is created on first use, and unlike the classes resolving WebJars while building GraalVM native images,
+ * this class is initialized at image run time, so that no threads are created while building the image.
+ */
+@NullMarked
+final class WebJarExecutor {
+
+    private static final long KEEP_ALIVE_SECONDS = 10;
+
+    private WebJarExecutor() {
+    }
+
+    static Executor get() {
+        return Holder.EXECUTOR;
+    }
+
+    private static final class Holder {
+        static final Executor EXECUTOR = create();
+    }
+
+    static Executor create() {
+        try {
+            // virtual threads are not available with the Java 8 API this library is compiled against
+            final Method newVirtualThreadPerTaskExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException ignored) {
+            // fall back to platform threads
+        }
+
+        final AtomicInteger threads = new AtomicInteger();
+        final int size = Math.max(2, Runtime.getRuntime().availableProcessors());
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+            final Thread thread = new Thread(task, "webjars-locator-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+}
@@ -0,0 +1,69 @@
+package org.webjars;
+
+import org.jspecify.annotations.NullMarked;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WebJars resolved while building a GraalVM native image.
+ *
+ * <p>The {@code native-image.properties} of this library initializes this class, and the classes it uses to resolve WebJars, at image build time.
+ * No other classes of the {@code org.webjars} package, which is shared with other WebJar libraries, are affected. The static initializer of this class
+ * then resolves all WebJars of the image classpath, including those registered by {@code webjars-locator.properties} files, so that the result
+ * is stored in the image heap. At image run time, locators start from this index, so neither the {@code pom.properties} files nor the
+ * resource directories of WebJars have to be included in the image just for looking up versions.
+ *
+ * <p>Outside of native images, the index is empty.
+ */
+@NullMarked
+final class WebJarImageIndex {
+
+    private static final String IMAGE_CODE = "org.graalvm.nativeimage.imagecode";
+
+    /**
+     * The resolved WebJars, in the format of {@code webjars-index.properties}.
+     */
+    static final Properties WEBJARS = "buildtime".equals(System.getProperty(IMAGE_CODE))
+        ? resolve(WebJarImageIndex.class.getClassLoader())
+        : new Properties();
+
+    private WebJarImageIndex() {
+    }
+
+    /**
+     * @return {@code true} if running within a native image
+     */
+    static boolean inImage() {
+        return "runtime".equals(System.getProperty(IMAGE_CODE));
+    }
+
+    /**
+     * Resolves all WebJars visible to the given class loader.
+     *
+     * @param loader The class loader
+     * @return The resolved WebJars, in the format of {@code webjars-index.properties}
+     */
+    static Properties resolve(final ClassLoader loader) {
+        final WebJarCacheDefault cache = new WebJarCacheDefault(new ConcurrentHashMap<>());
+        final WebJarVersionLocator locator = new WebJarVersionLocator(loader, cache);
+        locator.warmUp();
+
+        final Properties webJars = new Properties();
+        for (Map.Entry<String, Optional<WebJarInfo>> entry : cache.cache.entrySet()) {
+            final WebJarInfo info = entry.getValue().orElse(null);
+            if (info == null || info.version == null) {
+                continue;
+            }
+            webJars.setProperty(entry.getKey() + ".version", info.version);
+            final String groupId = locator.groupId(entry.getKey());
+            if (groupId != null) {
+                webJars.setProperty(entry.getKey() + ".groupId", groupId);
+            }
+        }
+        return webJars;
+    }
+
+}
@@ -0,0 +1,103 @@
+package org.webjars;
+
+import org.jspecify.annotations.NullMarked;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Generates the {@code META-INF/resources/webjars-index.properties} file read by {@link WebJarVersionLocator}.
+ *
+ * <p>The generator scans the classpath it runs with once and writes the resolved version and group ID of every official WebJar found.
+ * It is meant to be run during the build of an application, e.g. with the {@code exec-maven-plugin} in the {@code process-classes} phase:
+ * <pre>{@code
+ * <plugin>
+ *     <groupId>org.codehaus.mojo</groupId>
+ *     <artifactId>exec-maven-plugin</artifactId>
+ *     <executions>
+ *         <execution>
+ *             <phase>process-classes</phase>
+ *             <goals>
+ *                 <goal>java</goal>
+ *             </goals>
+ *             <configuration>
+ *                 <mainClass>org.webjars.WebJarIndexGenerator</mainClass>
+ *                 <arguments>
+ *                     <argument>${project.build.outputDirectory}</argument>
+ *                 </arguments>
+ *             </configuration>
+ *         </execution>
+ *     </executions>
+ * </plugin>
+ * }</pre>
+ *
+ * <p>Example output:
+ * <pre>{@code
+ * bootstrap.groupId=org.webjars
+ * bootstrap.version=3.1.1
+ * jquery.groupId=org.webjars.npm
+ * jquery.version=3.7.1
+ * }</pre>
+ */
+@NullMarked
+public final class WebJarIndexGenerator {
+
+    private WebJarIndexGenerator() {
+    }
+
+    /**
+     * Writes the index into {@code META-INF/resources/webjars-index.properties} below the given output directory.
+     *
+     * @param args The output directory, usually the classes directory of the build, defaults to the working directory
+     * @throws IOException If the index could not be written
+     */
+    public static void main(final String... args) throws IOException {
+        final Path outputDirectory = Paths.get(args.length > 0 ? args[0] : "");
+        final Path index = outputDirectory.resolve(WebJarVersionLocator.INDEX_PROPERTIES);
+        Files.createDirectories(index.getParent());
+        try (Writer writer = Files.newBufferedWriter(index, StandardCharsets.ISO_8859_1)) {
+            write(WebJarIndexGenerator.class.getClassLoader(), writer);
+        }
+    }
+
+    /**
+     * Writes the index for all WebJars visible to the given class loader.
+     *
+     * <p>Entries are sorted by key, so the output is reproducible.
+     *
+     * @param loader The class loader to scan
+     * @param writer The writer to write the index to
+     * @throws IOException If the index could not be written
+     */
+    static void write(final ClassLoader loader, final Writer writer) throws IOException {
+        write(WebJarScanner.scan(loader), writer);
+    }
+
+    /**
+     * Writes the index entries for the given WebJars, sorted by key.
+     *
+     * @param webJars The WebJars to write
+     * @param writer  The writer to write the index to
+     * @throws IOException If the index could not be written
+     */
+    static void write(final Map<String, WebJarScanner.ScannedWebJar> webJars, final Writer writer) throws IOException {
+        final Map<String, String> entries = new TreeMap<>();
+        for (Map.Entry<String, WebJarScanner.ScannedWebJar> webJar : webJars.entrySet()) {
+            entries.put(webJar.getKey() + ".version", webJar.getValue().version);
+            entries.put(webJar.getKey() + ".groupId", webJar.getValue().groupId);
+        }
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            writer.write(entry.getKey());
+            writer.write('=');
+            writer.write(entry.getValue());
+            writer.write('\n');
+        }
+    }
+
+}
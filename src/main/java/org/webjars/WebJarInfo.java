@@ -0,0 +1,82 @@
+package org.webjars;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.net.URL;
+
+/**
+ * The cached lookup result of a single WebJar.
+ *
+ * <p>Besides the version and group ID, the prefixes of the versioned paths are computed once,
+ * so that building a path for a file of the WebJar is a single concatenation.
+ *
+ * <p>Versions and group IDs are interned. Many WebJars share a version and all official WebJars share one of two group IDs,
+ * so every distinct value is held once, no matter if it has been read from a {@code pom.properties} file, an index or a snapshot.
+ * Lookups of missing WebJars are cached as {@link java.util.Optional#empty()}, so misses share a single instance as well.
+ */
+@NullMarked
+final class WebJarInfo {
+
+    /**
+     * The version used in the resource path, {@code null} if the WebJar has metadata but no matching resource path.
+     */
+    @Nullable
+    final String version;
+
+    /**
+     * The Maven group ID, {@code null} for custom WebJars. For versions pinned in {@code webjars-locator.properties},
+     * it is only determined on first use, see {@link #groupIdResolved}.
+     */
+    @Nullable
+    volatile String groupId;
+
+    /**
+     * If {@link #groupId} has been determined.
+     */
+    volatile boolean groupIdResolved;
+
+    /**
+     * {@code <name>/<version>/}, {@code null} if the version is unknown or blank.
+     */
+    @Nullable
+    final String pathPrefix;
+
+    /**
+     * {@code META-INF/resources/webjars/<name>/<version>/}, {@code null} if the version is unknown or blank.
+     */
+    @Nullable
+    final String fullPathPrefix;
+
+    /**
+     * The location of the {@code pom.properties} the WebJar has been read from, to check if another class loader sees the same WebJar,
+     * {@code null} if not known yet.
+     */
+    @Nullable
+    volatile URL pomProperties;
+
+    WebJarInfo(final String webJarName, @Nullable final String version, @Nullable final String groupId) {
+        this(webJarName, version);
+        resolveGroupId(groupId);
+    }
+
+    /**
+     * Creates the info of a WebJar whose group ID has not been determined yet.
+     */
+    WebJarInfo(final String webJarName, @Nullable final String version) {
+        this.version = version != null ? version.intern() : null;
+        if (version != null && !version.trim().isEmpty()) {
+            this.pathPrefix = webJarName + "/" + version + "/";
+            this.fullPathPrefix = WebJarVersionLocator.WEBJARS_PATH_PREFIX + "/" + pathPrefix;
+        } else {
+            this.pathPrefix = null;
+            this.fullPathPrefix = null;
+        }
+    }
+
+    void resolveGroupId(@Nullable final String groupId) {
+        this.groupId = groupId != null ? groupId.intern() : null;
+        this.groupIdResolved = true;
+    }
+
+}
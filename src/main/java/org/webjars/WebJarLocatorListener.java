@@ -0,0 +1,86 @@
+package org.webjars;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Listener for the lookups performed by a {@link WebJarVersionLocator}, e.g. to collect metrics.
+ *
+ * <p>A listener is registered when constructing the locator, see {@link WebJarVersionLocator#WebJarVersionLocator(WebJarLocatorListener)}.
+ * Without a listener, no events are created at all. {@link WebJarLocatorStatistics} is a ready-made implementation that counts all events.
+ *
+ * <p>All methods have an empty default implementation. They are called on the thread performing the lookup, so implementations must be
+ * thread safe and should return quickly.
+ */
+@NullMarked
+public interface WebJarLocatorListener {
+
+    /**
+     * The public lookup operations of {@link WebJarVersionLocator}.
+     */
+    enum Operation {
+        VERSION,
+        GROUP_ID,
+        PATH,
+        FULL_PATH
+    }
+
+    /**
+     * The rules used to match the Maven artifact version of a WebJar to the version used in its resource path.
+     */
+    enum VersionMatch {
+        /**
+         * The resource path uses the artifact version.
+         */
+        EXACT,
+        /**
+         * The resource path uses the part of the artifact version before the first dash, e.g. {@code 3.1.1} for {@code 3.1.1-1}.
+         */
+        BEFORE_DASH,
+        /**
+         * The resource path uses the part of the artifact version after the first dash, e.g. {@code 04f46c6} for {@code 2015.11.25-04f46c6}.
+         */
+        AFTER_DASH,
+        /**
+         * The resource path uses the artifact version without semver build metadata, e.g. {@code 1.14.2} for {@code 1.14.2+1}.
+         */
+        BEFORE_PLUS
+    }
+
+    /**
+     * Called when a lookup has been answered by the cache.
+     *
+     * @param operation  The lookup operation
+     * @param webJarName The name of the WebJar
+     */
+    default void cacheHit(Operation operation, String webJarName) {
+    }
+
+    /**
+     * Called when a lookup was not cached and the WebJar has been looked up in the classpath.
+     *
+     * @param operation  The lookup operation
+     * @param webJarName The name of the WebJar
+     */
+    default void cacheMiss(Operation operation, String webJarName) {
+    }
+
+    /**
+     * Called for every resource lookup performed on the class loader.
+     *
+     * @param resourcePath The path of the resource looked up
+     */
+    default void classLoaderProbe(String resourcePath) {
+    }
+
+    /**
+     * Called when a WebJar has been looked up in the classpath.
+     *
+     * @param webJarName   The name of the WebJar
+     * @param versionMatch The rule that matched the artifact version to the resource path, {@code null} if the WebJar or no matching path has been found
+     * @param nanos        The time the lookup took, in nanoseconds
+     */
+    default void loaded(String webJarName, @Nullable VersionMatch versionMatch, long nanos) {
+    }
+
+}
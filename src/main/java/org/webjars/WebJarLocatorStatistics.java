@@ -0,0 +1,118 @@
+package org.webjars;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link WebJarLocatorListener} that counts all lookup events.
+ *
+ * <p>The statistics can be read directly or exposed via JMX, as this class implements {@link WebJarLocatorStatisticsMXBean}:
+ * <pre>{@code
+ * WebJarLocatorStatistics statistics = new WebJarLocatorStatistics();
+ * WebJarVersionLocator locator = new WebJarVersionLocator(statistics);
+ * ManagementFactory.getPlatformMBeanServer().registerMBean(statistics, new ObjectName("org.webjars:type=WebJarVersionLocator"));
+ * }</pre>
+ *
+ * <p>The class is thread safe.
+ */
+@NullMarked
+public class WebJarLocatorStatistics implements WebJarLocatorListener, WebJarLocatorStatisticsMXBean {
+
+    private static final int LATENCY_BUCKETS = 24;
+
+    private final Map<Operation, LongAdder> cacheHits = counters(Operation.class);
+    private final Map<Operation, LongAdder> cacheMisses = counters(Operation.class);
+    private final LongAdder classLoaderProbes = new LongAdder();
+    private final Map<VersionMatch, LongAdder> versionMatches = counters(VersionMatch.class);
+    private final LongAdder versionMisses = new LongAdder();
+    private final LongAdder[] loadLatencies = new LongAdder[LATENCY_BUCKETS];
+
+    public WebJarLocatorStatistics() {
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            loadLatencies[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void cacheHit(final Operation operation, final String webJarName) {
+        cacheHits.get(operation).increment();
+    }
+
+    @Override
+    public void cacheMiss(final Operation operation, final String webJarName) {
+        cacheMisses.get(operation).increment();
+    }
+
+    @Override
+    public void classLoaderProbe(final String resourcePath) {
+        classLoaderProbes.increment();
+    }
+
+    @Override
+    public void loaded(final String webJarName, @Nullable final VersionMatch versionMatch, final long nanos) {
+        if (versionMatch != null) {
+            versionMatches.get(versionMatch).increment();
+        } else {
+            versionMisses.increment();
+        }
+        final long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+        loadLatencies[Math.min(64 - Long.numberOfLeadingZeros(micros), LATENCY_BUCKETS - 1)].increment();
+    }
+
+    @Override
+    public Map<String, Long> getCacheHits() {
+        return snapshot(cacheHits);
+    }
+
+    @Override
+    public Map<String, Long> getCacheMisses() {
+        return snapshot(cacheMisses);
+    }
+
+    @Override
+    public long getClassLoaderProbes() {
+        return classLoaderProbes.sum();
+    }
+
+    @Override
+    public Map<String, Long> getVersionMatches() {
+        return snapshot(versionMatches);
+    }
+
+    @Override
+    public long getVersionMisses() {
+        return versionMisses.sum();
+    }
+
+    @Override
+    public long[] getLoadLatencyHistogram() {
+        final long[] histogram = new long[LATENCY_BUCKETS];
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            histogram[i] = loadLatencies[i].sum();
+        }
+        return histogram;
+    }
+
+    private static <E extends Enum<E>> Map<E, LongAdder> counters(final Class<E> type) {
+        final Map<E, LongAdder> counters = new EnumMap<>(type);
+        for (E constant : type.getEnumConstants()) {
+            counters.put(constant, new LongAdder());
+        }
+        return counters;
+    }
+
+    private static <E extends Enum<E>> Map<String, Long> snapshot(final Map<E, LongAdder> counters) {
+        final Map<String, Long> snapshot = new LinkedHashMap<>();
+        for (Map.Entry<E, LongAdder> counter : counters.entrySet()) {
+            snapshot.put(counter.getKey().name(), counter.getValue().sum());
+        }
+        return snapshot;
+    }
+
+}
@@ -0,0 +1,48 @@
+package org.webjars;
+
+import org.jspecify.annotations.NullMarked;
+
+import java.util.Map;
+
+/**
+ * JMX management interface of {@link WebJarLocatorStatistics}.
+ */
+@NullMarked
+public interface WebJarLocatorStatisticsMXBean {
+
+    /**
+     * @return The number of lookups answered by the cache, per {@link WebJarLocatorListener.Operation}
+     */
+    Map<String, Long> getCacheHits();
+
+    /**
+     * @return The number of lookups that had to look up the classpath, per {@link WebJarLocatorListener.Operation}
+     */
+    Map<String, Long> getCacheMisses();
+
+    /**
+     * @return The number of resource lookups performed on the class loader
+     */
+    long getClassLoaderProbes();
+
+    /**
+     * @return The number of WebJars found, per {@link WebJarLocatorListener.VersionMatch} rule that matched their version
+     */
+    Map<String, Long> getVersionMatches();
+
+    /**
+     * @return The number of classpath lookups that did not find a WebJar version
+     */
+    long getVersionMisses();
+
+    /**
+     * Returns the histogram of the classpath lookup latencies.
+     *
+     * <p>Bucket {@code 0} counts lookups faster than 1 microsecond, bucket {@code i} lookups taking at least {@code 2^(i-1)} but less than {@code 2^i} microseconds.
+     * The last bucket counts all slower lookups.
+     *
+     * @return The number of lookups per bucket
+     */
+    long[] getLoadLatencyHistogram();
+
+}
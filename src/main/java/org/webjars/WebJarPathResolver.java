@@ -0,0 +1,192 @@
+package org.webjars;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.util.function.Function;
+
+/**
+ * Resolves request paths of the form {@code <webJarName>/<filePath>} to full versioned classpath locations, without allocating in the common case.
+ *
+ * <p>Recently resolved paths are kept in a direct-mapped table, indexed by a hash computed on the request path itself.
+ * A hit compares the request path with the cached entry character by character and returns the cached full path, so no substrings are created.
+ * On a miss, the WebJar name is looked up in a table of known WebJars by a hash of the name within the request path;
+ * only names that have never been resolved before are copied into a string to look them up in the {@link WebJarCache}.
+ * Request paths of unknown WebJars are kept in the table of recent paths as well, so repeated misses do not allocate either.
+ *
+ * <p>The tables are read without locking. This is safe as all entries are immutable, a stale read only results in a miss.
+ */
+@NullMarked
+final class WebJarPathResolver {
+
+    private static final int RECENT_PATHS = 1024;
+    private static final int INITIAL_NAMES = 64;
+
+    private final Function<String, @Nullable WebJarInfo> lookup;
+    private final @Nullable Resolved[] recent = new Resolved[RECENT_PATHS];
+    private volatile @Nullable Named[] names = new Named[INITIAL_NAMES];
+    private int nameCount;
+
+    WebJarPathResolver(final Function<String, @Nullable WebJarInfo> lookup) {
+        this.lookup = lookup;
+    }
+
+    @Nullable
+    String fullPath(final CharSequence path, final int offset) {
+        final int length = path.length();
+        final int nameEnd = indexOf(path, '/', offset, length);
+        if (nameEnd <= offset) {
+            return null;
+        }
+
+        final int hash = hash(path, offset, length);
+        final int slot = (hash ^ (hash >>> 16)) & (RECENT_PATHS - 1);
+        final Resolved cached = recent[slot];
+        if (cached != null && cached.matches(path, offset, nameEnd, length)) {
+            return cached.fullPath;
+        }
+
+        Named named = findName(path, offset, nameEnd);
+        if (named == null) {
+            final String requestPath = path.subSequence(offset, length).toString();
+            final String webJarName = requestPath.substring(0, nameEnd - offset);
+            final WebJarInfo info = lookup.apply(webJarName);
+            if (info == null || info.fullPathPrefix == null) {
+                recent[slot] = new Resolved(webJarName, webJarName.length() + 1, requestPath, null);
+                return null;
+            }
+            named = addName(webJarName, info);
+        }
+
+        final WebJarInfo info = named.info;
+        final String prefix = startsWith(path, nameEnd + 1, length, info.version) ? named.fullNamePrefix : info.fullPathPrefix;
+        final String fullPath = new StringBuilder(prefix.length() + length - nameEnd - 1).append(prefix).append(path, nameEnd + 1, length).toString();
+        recent[slot] = new Resolved(named.name, prefix.length(), fullPath, fullPath);
+        return fullPath;
+    }
+
+    @Nullable
+    private Named findName(final CharSequence path, final int start, final int end) {
+        final int hash = hash(path, start, end);
+        final @Nullable Named[] table = names;
+        final int mask = table.length - 1;
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            final Named named = table[i];
+            if (named == null) {
+                return null;
+            }
+            if (named.hash == hash && regionEquals(named.name, 0, path, start, end)) {
+                return named;
+            }
+        }
+    }
+
+    private synchronized Named addName(final String webJarName, final WebJarInfo info) {
+        @Nullable Named[] table = names;
+        if ((nameCount + 1) * 2 > table.length) {
+            final @Nullable Named[] resized = new Named[table.length * 2];
+            for (Named named : table) {
+                if (named != null) {
+                    insert(resized, named);
+                }
+            }
+            table = resized;
+        }
+        final Named named = new Named(webJarName, info);
+        if (insert(table, named)) {
+            nameCount++;
+        }
+        names = table;
+        return named;
+    }
+
+    private static boolean insert(final @Nullable Named[] table, final Named named) {
+        final int mask = table.length - 1;
+        for (int i = named.hash & mask; ; i = (i + 1) & mask) {
+            final Named existing = table[i];
+            if (existing == null) {
+                table[i] = named;
+                return true;
+            }
+            if (existing.name.equals(named.name)) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Computes the hash of a region like {@link String#hashCode()} does for the equivalent string.
+     */
+    private static int hash(final CharSequence path, final int start, final int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + path.charAt(i);
+        }
+        return hash;
+    }
+
+    private static int indexOf(final CharSequence path, final char c, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (path.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(final CharSequence path, final int start, final int end, @Nullable final String prefix) {
+        return prefix != null && end - start >= prefix.length() && regionEquals(prefix, 0, path, start, start + prefix.length());
+    }
+
+    private static boolean regionEquals(final String string, final int stringStart, final CharSequence path, final int start, final int end) {
+        if (string.length() - stringStart != end - start) {
+            return false;
+        }
+        for (int i = start, j = stringStart; i < end; i++, j++) {
+            if (string.charAt(j) != path.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A known WebJar.
+     */
+    private static final class Named {
+        final String name;
+        final int hash;
+        final WebJarInfo info;
+        final String fullNamePrefix;
+
+        Named(final String name, final WebJarInfo info) {
+            this.name = name;
+            this.hash = name.hashCode();
+            this.info = info;
+            this.fullNamePrefix = WebJarVersionLocator.WEBJARS_PATH_PREFIX + "/" + name + "/";
+        }
+    }
+
+    /**
+     * A recently resolved request path, {@code path} consists of a prefix of {@code prefixLength} characters followed by the file path of the request.
+     * This is the full path if the WebJar has been found, otherwise the request path itself and {@code fullPath} is {@code null}.
+     */
+    private static final class Resolved {
+        final String name;
+        final int prefixLength;
+        final String path;
+        final @Nullable String fullPath;
+
+        Resolved(final String name, final int prefixLength, final String path, @Nullable final String fullPath) {
+            this.name = name;
+            this.prefixLength = prefixLength;
+            this.path = path;
+            this.fullPath = fullPath;
+        }
+
+        boolean matches(final CharSequence path, final int start, final int nameEnd, final int end) {
+            return regionEquals(name, 0, path, start, nameEnd) && regionEquals(this.path, prefixLength, path, nameEnd + 1, end);
+        }
+    }
+
+}
@@ -0,0 +1,197 @@
+package org.webjars;
+
+import org.jspecify.annotations.NullMarked;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * An immutable prefix tree of the files below {@link WebJarVersionLocator#WEBJARS_PATH_PREFIX}.
+ *
+ * <p>Every node holds the path segments of its children as a sorted array, so checking if a file exists is a binary search per segment
+ * and does not allocate. Path segments are deduplicated while building, so segments like versions or {@code css} are stored once.
+ *
+ * <p>A tree is not complete if some classpath roots could not be read, e.g. because they use a custom URL protocol.
+ * Files missing from an incomplete tree may still exist.
+ *
+ * <p>The class is thread safe.
+ */
+@NullMarked
+final class WebJarResourceTree {
+
+    private static final String[] NO_NAMES = {};
+    private static final WebJarResourceTree[] NO_CHILDREN = {};
+    private static final WebJarResourceTree FILE = new WebJarResourceTree(NO_NAMES, NO_CHILDREN, true, true);
+
+    private final String[] names;
+    private final WebJarResourceTree[] children;
+    private final boolean file;
+    private final boolean complete;
+
+    private WebJarResourceTree(final String[] names, final WebJarResourceTree[] children, final boolean file, final boolean complete) {
+        this.names = names;
+        this.children = children;
+        this.file = file;
+        this.complete = complete;
+    }
+
+    /**
+     * @return {@code true} if the tree contains the files of all classpath roots
+     */
+    boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Checks if the tree contains a file.
+     *
+     * @param path   The path containing the file path
+     * @param offset The start of the file path relative to {@link WebJarVersionLocator#WEBJARS_PATH_PREFIX} within {@code path}
+     * @return {@code true} if the file exists
+     */
+    boolean containsFile(final String path, final int offset) {
+        WebJarResourceTree node = this;
+        int start = offset;
+        while (true) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            final int index = node.indexOf(path, start, end);
+            if (index < 0) {
+                return false;
+            }
+            node = node.children[index];
+            if (end == path.length()) {
+                return node.file;
+            }
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Lists all files below a directory of the tree.
+     *
+     * @param directory The path of the directory relative to {@link WebJarVersionLocator#WEBJARS_PATH_PREFIX}, without a trailing slash
+     * @return The paths of the files relative to {@code directory}, in lexicographic order of their segments
+     */
+    List<String> files(final String directory) {
+        WebJarResourceTree node = this;
+        int start = 0;
+        while (start <= directory.length()) {
+            int end = directory.indexOf('/', start);
+            if (end < 0) {
+                end = directory.length();
+            }
+            final int index = node.indexOf(directory, start, end);
+            if (index < 0) {
+                return new ArrayList<>();
+            }
+            node = node.children[index];
+            start = end + 1;
+        }
+        final List<String> files = new ArrayList<>();
+        node.collect("", files);
+        return files;
+    }
+
+    private void collect(final String prefix, final List<String> files) {
+        for (int i = 0; i < names.length; i++) {
+            final WebJarResourceTree child = children[i];
+            if (child.file) {
+                files.add(prefix + names[i]);
+            }
+            child.collect(prefix + names[i] + "/", files);
+        }
+    }
+
+    private int indexOf(final String path, final int start, final int end) {
+        int low = 0;
+        int high = names.length - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int comparison = compare(names[middle], path, start, end);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares like {@link String#compareTo(String)}, with a region of {@code path} as the second string.
+     */
+    private static int compare(final String name, final String path, final int start, final int end) {
+        final int length = Math.min(name.length(), end - start);
+        for (int i = 0; i < length; i++) {
+            final int difference = name.charAt(i) - path.charAt(start + i);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return name.length() - (end - start);
+    }
+
+    static final class Builder {
+        private final Map<String, String> segments = new HashMap<>();
+        private final Node root = new Node();
+        private boolean complete = true;
+
+        /**
+         * Adds a file.
+         *
+         * @param path The path of the file, relative to {@link WebJarVersionLocator#WEBJARS_PATH_PREFIX}
+         */
+        void add(final String path) {
+            Node node = root;
+            int start = 0;
+            while (start <= path.length()) {
+                int end = path.indexOf('/', start);
+                if (end < 0) {
+                    end = path.length();
+                }
+                final String segment = path.substring(start, end);
+                node = node.children.computeIfAbsent(segments.computeIfAbsent(segment, s -> s), s -> new Node());
+                start = end + 1;
+            }
+            node.file = true;
+        }
+
+        /**
+         * Marks the tree as not complete, as the files of a classpath root could not be added.
+         */
+        void incomplete() {
+            complete = false;
+        }
+
+        WebJarResourceTree build() {
+            final WebJarResourceTree tree = root.freeze();
+            return complete ? tree : new WebJarResourceTree(tree.names, tree.children, tree.file, false);
+        }
+    }
+
+    private static final class Node {
+        final TreeMap<String, Node> children = new TreeMap<>();
+        boolean file;
+
+        WebJarResourceTree freeze() {
+            if (children.isEmpty()) {
+                return file ? FILE : new WebJarResourceTree(NO_NAMES, NO_CHILDREN, false, true);
+            }
+            final String[] names = children.keySet().toArray(NO_NAMES);
+            final WebJarResourceTree[] frozen = new WebJarResourceTree[names.length];
+            for (int i = 0; i < names.length; i++) {
+                frozen[i] = children.get(names[i]).freeze();
+            }
+            return new WebJarResourceTree(names, frozen, file, true);
+        }
+    }
+
+}
@@ -0,0 +1,339 @@
+package org.webjars;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.function.Function;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Scans all classpath roots of a {@link ClassLoader} for WebJar metadata in a single pass.
+ *
+ * <p>Instead of asking the class loader for every {@code pom.properties} and WebJar resource path separately (each of which walks the whole classpath),
+ * the scanner reads the central directory of every jar file once and resolves the versions of all official WebJars from that.
+ */
+@NullMarked
+final class WebJarScanner {
+
+    private static final String PROPERTIES_ROOT = "META-INF/maven/";
+    private static final String NPM = "org.webjars.npm";
+    private static final String PLAIN = "org.webjars";
+    private static final String POM_PROPERTIES = "/pom.properties";
+    private static final String WEBJARS_ROOT = WebJarVersionLocator.WEBJARS_PATH_PREFIX + "/";
+
+    /**
+     * Resources every classpath root is expected to contain at least one of.
+     */
+    private static final String[] ROOT_MARKERS = {"META-INF/MANIFEST.MF", "META-INF/maven", WebJarVersionLocator.WEBJARS_PATH_PREFIX};
+
+    private WebJarScanner() {
+    }
+
+    /**
+     * A WebJar found by the scanner, with its version already resolved to the version used in the resource path.
+     */
+    static final class ScannedWebJar {
+        final String version;
+        final String groupId;
+
+        ScannedWebJar(final String version, final String groupId) {
+            this.version = version;
+            this.groupId = groupId;
+        }
+    }
+
+    /**
+     * Scans all classpath roots of the given class loader.
+     *
+     * <p>The roots are read in parallel and merged afterward. The order of the roots found is not the classpath order,
+     * so if a WebJar is found in several roots, the one the class loader itself resolves its {@code pom.properties} from wins, like for a lazy lookup.
+     *
+     * @param loader The class loader to scan
+     * @return All official WebJars found, keyed by WebJar name, in classpath order
+     */
+    static Map<String, ScannedWebJar> scan(final ClassLoader loader) {
+        final Set<String> resourcePaths = new HashSet<>();
+        final List<RootContents> scanned = roots(loader).parallelStream().map(root -> scanRoot(root, false)).collect(Collectors.toList());
+        for (RootContents contents : scanned) {
+            resourcePaths.addAll(contents.resourcePaths);
+        }
+        final Map<String, Properties> npm = merge(loader, scanned, NPM, contents -> contents.npm);
+        final Map<String, Properties> plain = merge(loader, scanned, PLAIN, contents -> contents.plain);
+
+        final Map<String, ScannedWebJar> webJars = new LinkedHashMap<>();
+        resolve(npm, NPM, resourcePaths, webJars);
+        // like the lookup of a single WebJar, an NPM-style pom.properties takes precedence even if its version does not resolve
+        plain.keySet().removeIf(webJarName -> !npm.getOrDefault(webJarName, new Properties()).isEmpty());
+        resolve(plain, PLAIN, resourcePaths, webJars);
+        return webJars;
+    }
+
+    /**
+     * Scans all classpath roots of the given class loader for the files of WebJars.
+     *
+     * @param loader The class loader to scan
+     * @return All files below {@link WebJarVersionLocator#WEBJARS_PATH_PREFIX}, not {@linkplain WebJarResourceTree#isComplete() complete} if any root could not be read
+     */
+    static WebJarResourceTree scanResources(final ClassLoader loader) {
+        final WebJarResourceTree.Builder builder = new WebJarResourceTree.Builder();
+        final List<RootContents> scanned = roots(loader).parallelStream().map(root -> scanRoot(root, true)).collect(Collectors.toList());
+        for (RootContents contents : scanned) {
+            contents.files.forEach(builder::add);
+            if (contents.unreadable) {
+                builder.incomplete();
+            }
+        }
+        if (WebJarImageIndex.inImage()) {
+            // the resources of a native image cannot be listed, so files are looked up on the class loader
+            builder.incomplete();
+        }
+        return builder.build();
+    }
+
+    /**
+     * Computes a fingerprint of the classpath of the given class loader.
+     *
+     * <p>The fingerprint covers the location of every classpath root and, for roots in the file system, their size and modification time.
+     * For directories, the modification times of the WebJar metadata and resource directories are included as well.
+     *
+     * @param loader The class loader
+     * @return A hex encoded SHA-256 digest
+     */
+    static String fingerprint(final ClassLoader loader) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        for (String root : roots(loader)) {
+            final StringBuilder entry = new StringBuilder(root);
+            try {
+                final String location = root.startsWith("jar:file:") ? root.substring("jar:".length(), root.indexOf("!/")) : root;
+                if (location.startsWith("file:")) {
+                    final Path path = Paths.get(new URL(location).toURI());
+                    entry.append('|').append(Files.size(path)).append('|').append(Files.getLastModifiedTime(path).toMillis());
+                    if (Files.isDirectory(path)) {
+                        for (String directory : new String[]{PROPERTIES_ROOT, WEBJARS_ROOT}) {
+                            final Path metadata = path.resolve(directory);
+                            if (Files.isDirectory(metadata)) {
+                                try (Stream<Path> paths = Files.walk(metadata)) {
+                                    entry.append('|').append(paths.mapToLong(WebJarScanner::lastModified).max().orElse(0));
+                                }
+                            }
+                        }
+                    }
+                }
+            } catch (IOException | URISyntaxException | UncheckedIOException | IndexOutOfBoundsException ignored) {
+                // the location alone is part of the fingerprint
+            }
+            digest.update(entry.append('\n').toString().getBytes(StandardCharsets.UTF_8));
+        }
+        final StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static long lastModified(final Path path) {
+        try {
+            return Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Merges the {@code pom.properties} of one group ID found in all roots, taking those of a WebJar found in several roots from the root
+     * the class loader resolves them from.
+     */
+    private static Map<String, Properties> merge(final ClassLoader loader, final List<RootContents> scanned, final String groupId,
+                                                 final Function<RootContents, Map<String, Properties>> poms) {
+        final Map<String, Properties> merged = new LinkedHashMap<>();
+        final Set<String> ambiguous = new HashSet<>();
+        for (RootContents contents : scanned) {
+            for (Map.Entry<String, Properties> entry : poms.apply(contents).entrySet()) {
+                if (merged.putIfAbsent(entry.getKey(), entry.getValue()) != null) {
+                    ambiguous.add(entry.getKey());
+                }
+            }
+        }
+        for (String webJarName : ambiguous) {
+            final String path = PROPERTIES_ROOT + groupId + "/" + webJarName + POM_PROPERTIES;
+            final URL resource = loader.getResource(path);
+            if (resource == null) {
+                continue;
+            }
+            for (RootContents contents : scanned) {
+                final Properties properties = poms.apply(contents).get(webJarName);
+                if (properties != null && resource.toString().equals(contents.root + path)) {
+                    merged.put(webJarName, properties);
+                    break;
+                }
+            }
+        }
+        return merged;
+    }
+
+    private static void resolve(final Map<String, Properties> poms, final String groupId, final Set<String> resourcePaths, final Map<String, ScannedWebJar> webJars) {
+        for (Map.Entry<String, Properties> entry : poms.entrySet()) {
+            final String webJarName = entry.getKey();
+            final String version = entry.getValue().getProperty("version");
+            if (version != null) {
+                final String resolved = WebJarVersionLocator.resolveVersion(version, path -> resourcePaths.contains(webJarName + "/" + path));
+                if (resolved != null) {
+                    webJars.put(webJarName, new ScannedWebJar(resolved, groupId));
+                }
+            }
+        }
+    }
+
+    /**
+     * Determines the distinct classpath roots of a class loader, as {@code jar:...!/} or {@code file:.../} URL strings.
+     */
+    private static Set<String> roots(final ClassLoader loader) {
+        final Set<String> roots = new LinkedHashSet<>();
+        try {
+            for (String marker : ROOT_MARKERS) {
+                final Enumeration<URL> resources = loader.getResources(marker);
+                while (resources.hasMoreElements()) {
+                    String url = resources.nextElement().toString();
+                    if (url.endsWith("/")) {
+                        url = url.substring(0, url.length() - 1);
+                    }
+                    if (url.endsWith(marker)) {
+                        roots.add(url.substring(0, url.length() - marker.length()));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("unable to enumerate classpath roots", e);
+        }
+        return roots;
+    }
+
+    private static RootContents scanRoot(final String root, final boolean collectFiles) {
+        final RootContents contents = new RootContents(root, collectFiles);
+        try {
+            if (root.startsWith("file:")) {
+                scanDirectory(Paths.get(new URL(root).toURI()), contents);
+            } else {
+                final URLConnection connection = new URL(root).openConnection();
+                if (!(connection instanceof JarURLConnection)) {
+                    // e.g. vfs: or resource: URLs of application servers and native images
+                    contents.unreadable = true;
+                } else {
+                    connection.setUseCaches(false);
+                    try (JarFile jarFile = ((JarURLConnection) connection).getJarFile()) {
+                        final Enumeration<JarEntry> entries = jarFile.entries();
+                        while (entries.hasMoreElements()) {
+                            final JarEntry entry = entries.nextElement();
+                            contents.accept(entry.getName(), () -> jarFile.getInputStream(entry));
+                        }
+                    }
+                }
+            }
+        } catch (IOException | URISyntaxException e) {
+            // roots that cannot be read are skipped, their WebJars are still found by regular lookups and their files by probing the class loader
+            contents.unreadable = true;
+        }
+        return contents;
+    }
+
+    private static void scanDirectory(final Path root, final RootContents contents) throws IOException {
+        for (String directory : new String[]{PROPERTIES_ROOT, WEBJARS_ROOT}) {
+            final Path start = root.resolve(directory);
+            if (!Files.isDirectory(start)) {
+                continue;
+            }
+            try (Stream<Path> paths = Files.walk(start)) {
+                final List<Path> files = new ArrayList<>();
+                paths.forEach(files::add);
+                for (Path file : files) {
+                    final String name = root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+                    contents.accept(Files.isDirectory(file) ? name + "/" : name, () -> Files.newInputStream(file));
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface EntryOpener {
+        InputStream open() throws IOException;
+    }
+
+    private static final class RootContents {
+        final String root;
+        final Map<String, Properties> npm = new LinkedHashMap<>();
+        final Map<String, Properties> plain = new LinkedHashMap<>();
+        final Set<String> resourcePaths = new HashSet<>();
+        final boolean collectFiles;
+        final List<String> files = new ArrayList<>();
+        boolean unreadable;
+
+        RootContents(final String root, final boolean collectFiles) {
+            this.root = root;
+            this.collectFiles = collectFiles;
+        }
+
+        void accept(final String name, final EntryOpener opener) throws IOException {
+            if (collectFiles) {
+                if (name.startsWith(WEBJARS_ROOT) && !name.endsWith("/")) {
+                    files.add(name.substring(WEBJARS_ROOT.length()));
+                }
+            } else if (name.startsWith(WEBJARS_ROOT)) {
+                final int nameEnd = name.indexOf('/', WEBJARS_ROOT.length());
+                if (nameEnd > 0 && nameEnd + 1 < name.length()) {
+                    final int childEnd = name.indexOf('/', nameEnd + 1);
+                    resourcePaths.add(name.substring(WEBJARS_ROOT.length(), childEnd < 0 ? name.length() : childEnd));
+                }
+            } else if (name.startsWith(PROPERTIES_ROOT) && name.endsWith(POM_PROPERTIES)) {
+                final int groupEnd = name.indexOf('/', PROPERTIES_ROOT.length());
+                final int artifactEnd = name.length() - POM_PROPERTIES.length();
+                if (groupEnd < 0 || groupEnd >= artifactEnd || name.indexOf('/', groupEnd + 1) != artifactEnd) {
+                    return;
+                }
+                final String groupId = name.substring(PROPERTIES_ROOT.length(), groupEnd);
+                @Nullable final Map<String, Properties> target = NPM.equals(groupId) ? npm : PLAIN.equals(groupId) ? plain : null;
+                if (target != null) {
+                    target.putIfAbsent(name.substring(groupEnd + 1, artifactEnd), load(opener));
+                }
+            }
+        }
+
+        private static Properties load(final EntryOpener opener) throws IOException {
+            final Properties properties = new Properties();
+            try (InputStream resource = opener.open()) {
+                properties.load(resource);
+            }
+            return properties;
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package org.webjars;
+
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Reads and writes snapshots of resolved WebJars, keyed by a fingerprint of the classpath.
+ *
+ * <p>A snapshot uses the format of the {@code webjars-index.properties} written by {@link WebJarIndexGenerator}, preceded by the fingerprint:
+ * <pre>{@code
+ * fingerprint=2c26b46b68ffc68ff99b453c1d30413413422d706483bfa0f98a5e886266e7ae
+ * bootstrap.groupId=org.webjars
+ * bootstrap.version=3.1.1
+ * }</pre>
+ */
+@NullMarked
+final class WebJarSnapshot {
+
+    private static final String FINGERPRINT = "fingerprint";
+
+    private WebJarSnapshot() {
+    }
+
+    /**
+     * Reads a snapshot, if it exists and has been written for the given fingerprint.
+     *
+     * @param snapshot    The snapshot file
+     * @param fingerprint The fingerprint of the current classpath
+     * @return The snapshot entries, or {@code null} if there is no valid snapshot for the fingerprint
+     */
+    @Nullable
+    static Properties read(final Path snapshot, final String fingerprint) {
+        if (!Files.isRegularFile(snapshot)) {
+            return null;
+        }
+        final Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(snapshot)) {
+            properties.load(in);
+        } catch (IOException | IllegalArgumentException e) {
+            // unreadable snapshots are treated like missing ones and overwritten
+            return null;
+        }
+        return fingerprint.equals(properties.getProperty(FINGERPRINT)) ? properties : null;
+    }
+
+    /**
+     * Writes a snapshot. The file is replaced atomically, so concurrently starting JVMs never read a partially written snapshot.
+     *
+     * <p>Failures are ignored, as the snapshot is only an optimization.
+     *
+     * @param snapshot    The snapshot file
+     * @param fingerprint The fingerprint of the current classpath
+     * @param webJars     The resolved WebJars
+     */
+    static void write(final Path snapshot, final String fingerprint, final Map<String, WebJarScanner.ScannedWebJar> webJars) {
+        try {
+            final Path directory = snapshot.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            final Path temporary = Files.createTempFile(directory, snapshot.getFileName().toString(), ".tmp");
+            try {
+                try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.ISO_8859_1)) {
+                    writer.write(FINGERPRINT + "=" + fingerprint + "\n");
+                    WebJarIndexGenerator.write(webJars, writer);
+                }
+                Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException ignored) {
+            // the snapshot is rewritten on the next start
+        }
+    }
+
+}
@@ -2,15 +2,29 @@ package org.webjars;
 
 import org.jspecify.annotations.NullMarked;
 import org.jspecify.annotations.Nullable;
+import org.webjars.WebJarLocatorListener.Operation;
+import org.webjars.WebJarLocatorListener.VersionMatch;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.ref.WeakReference;
 import java.net.URL;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 
 /**
@@ -35,6 +49,14 @@ import java.util.concurrent.ConcurrentHashMap;
  *
  * <p>When multiple {@code webjars-locator.properties} files contain a version for the same WebJar, the one that has been found first wins.
  *
+ * <p>Additionally, a {@code META-INF/resources/webjars-index.properties} file generated at build time by {@link WebJarIndexGenerator} is loaded during construction.
+ * Instead of reading the {@code pom.properties} of an indexed WebJar and probing for its resource directory, the first lookup only checks that the
+ * indexed version directory exists. Entries whose directory does not exist, e.g. from an index built into a library that depends on an older WebJar
+ * than the application, are ignored and the WebJar is looked up on the classpath. When multiple index files list the same WebJar, the one that has been found first is used.
+ * Versions from {@code webjars-locator.properties} files take precedence over the index.
+ *
+ * <p>Within GraalVM native images, all WebJars are resolved while building the image, see {@link WebJarImageIndex}.
+ *
  * <p>The class is thread safe.
  */
 @NullMarked
@@ -50,22 +72,235 @@ public class WebJarVersionLocator {
     private static final String PLAIN = "org.webjars/";
     private static final String POM_PROPERTIES = "/pom.properties";
     private static final String LOCATOR_PROPERTIES = "META-INF/resources/webjars-locator.properties";
+    static final String INDEX_PROPERTIES = "META-INF/resources/webjars-index.properties";
 
-    private static final String CACHE_KEY_PREFIX = "version-";
-    private static final String GROUPID_CACHE_KEY_PREFIX = "groupid-";
+    private static final String NPM_GROUP_ID = "org.webjars.npm";
+    private static final String PLAIN_GROUP_ID = "org.webjars";
 
-    private static final ClassLoader LOADER = WebJarVersionLocator.class.getClassLoader();
+    private static final int MAXIMUM_VARIANTS = 4096;
+    private static final Variant[] ENCODINGS = {Variant.BROTLI, Variant.GZIP};
 
+    /**
+     * Variants of a WebJar file that may exist next to it, see {@link WebJarVersionLocator#variantFullPath(String, String, Set)}.
+     */
+    public enum Variant {
+        /**
+         * The minified file, e.g. {@code jquery.min.js} for {@code jquery.js}.
+         */
+        MINIFIED(".min"),
+        /**
+         * The Brotli compressed file, e.g. {@code jquery.js.br} for {@code jquery.js}, to be served with {@code Content-Encoding: br}.
+         */
+        BROTLI(".br"),
+        /**
+         * The gzip compressed file, e.g. {@code jquery.js.gz} for {@code jquery.js}, to be served with {@code Content-Encoding: gzip}.
+         */
+        GZIP(".gz");
+
+        private final String extension;
+
+        Variant(final String extension) {
+            this.extension = extension;
+        }
+    }
+
+    private final ClassLoader loader;
     private final WebJarCache cache;
+    private final Map<String, WebJarInfo> indexed = new HashMap<>();
+    @Nullable
+    private final WebJarVersionLocator parent;
+    @Nullable
+    private final WebJarLocatorListener listener;
+    @Nullable
+    private volatile WebJarResourceTree resources;
+    private volatile boolean scanned;
+    private final Function<String, Optional<WebJarInfo>> lookup = this::load;
+    private final BoundedCache<VariantKey, Optional<String>> variants = new BoundedCache<>(MAXIMUM_VARIANTS);
+    private final WebJarPathResolver pathResolver = new WebJarPathResolver(name -> info(name, Operation.FULL_PATH));
 
     public WebJarVersionLocator() {
-        this.cache = new WebJarCacheDefault(new ConcurrentHashMap<>());
-        readLocatorProperties();
+        this(new WebJarCacheDefault(new ConcurrentHashMap<>()));
+    }
+
+    /**
+     * Creates a locator that reports all lookups to the given listener.
+     *
+     * @param listener The listener to notify, e.g. a {@link WebJarLocatorStatistics}
+     */
+    public WebJarVersionLocator(final WebJarLocatorListener listener) {
+        this(WebJarVersionLocator.class.getClassLoader(), new WebJarCacheDefault(new ConcurrentHashMap<>()), listener);
+    }
+
+    /**
+     * Creates a locator for the WebJars visible to the given class loader, e.g. the class loader of a web application.
+     *
+     * @param loader The class loader to look up WebJars with
+     * @see WebJarVersionLocator#forClassLoader(ClassLoader)
+     */
+    public WebJarVersionLocator(final ClassLoader loader) {
+        this(loader, new WebJarCacheDefault(new ConcurrentHashMap<>()));
     }
 
     WebJarVersionLocator(WebJarCache cache) {
+        this(WebJarVersionLocator.class.getClassLoader(), cache);
+    }
+
+    WebJarVersionLocator(ClassLoader loader, WebJarCache cache) {
+        this(loader, cache, null);
+    }
+
+    WebJarVersionLocator(ClassLoader loader, WebJarCache cache, @Nullable WebJarLocatorListener listener) {
+        this(loader, cache, listener, null);
+    }
+
+    private WebJarVersionLocator(ClassLoader loader, WebJarCache cache, @Nullable WebJarLocatorListener listener, @Nullable WebJarVersionLocator parent) {
+        this.loader = loader;
         this.cache = cache;
+        this.listener = listener;
+        this.parent = parent;
+        if (WebJarImageIndex.inImage() && loader == WebJarVersionLocator.class.getClassLoader()) {
+            // resolved while building the native image, the resources of the image cannot be scanned anyway
+            addIndexEntries(WebJarImageIndex.WEBJARS);
+            scanned = true;
+        }
         readLocatorProperties();
+        readIndex();
+    }
+
+    /**
+     * Creates a locator whose cache holds at most {@code maximumMisses} lookups of unknown WebJars.
+     *
+     * <p>The default cache keeps every lookup result forever. When WebJar names come from untrusted input, e.g. request URLs,
+     * lookups of random names would let it grow without bound. The cache of this locator always keeps WebJars that have been found,
+     * but evicts misses once the limit is reached, preferring to keep misses that are looked up frequently.
+     *
+     * @param maximumMisses The maximum number of cached misses, must be positive
+     * @return A new locator with a bounded cache
+     */
+    public static WebJarVersionLocator withBoundedCache(final int maximumMisses) {
+        return new WebJarVersionLocator(new WebJarCacheBounded(maximumMisses));
+    }
+
+    /**
+     * Creates a locator in the background, e.g. to not delay the startup of an application by reading from the classpath.
+     *
+     * <p>Creating a locator reads all {@code webjars-locator.properties} and {@code webjars-index.properties} files of the classpath.
+     * With {@code warmUp}, all WebJars of the classpath are resolved as well, see {@link WebJarVersionLocator#warmUp()}.
+     * The work runs on a virtual thread on Java 21 and later, and on a daemon platform thread on older versions.
+     *
+     * <pre>{@code
+     * CompletableFuture<WebJarVersionLocator> locator = WebJarVersionLocator.createAsync(true);
+     * // later, e.g. on the first request
+     * locator.join().version("bootstrap");
+     * }</pre>
+     *
+     * @param warmUp If all WebJars of the classpath are resolved before the future completes
+     * @return A future completed with the new locator
+     */
+    public static CompletableFuture<WebJarVersionLocator> createAsync(final boolean warmUp) {
+        return CompletableFuture.supplyAsync(() -> {
+            final WebJarVersionLocator locator = new WebJarVersionLocator();
+            if (warmUp) {
+                locator.warmUp();
+            }
+            return locator;
+        }, WebJarExecutor.get());
+    }
+
+    /**
+     * Returns the locator shared by all users of a class loader, creating it if needed.
+     *
+     * <p>In containers hosting multiple applications, every application has its own class loader and needs its own locator,
+     * but the WebJars of a parent class loader, e.g. those shared by all applications, are the same for every application.
+     * Shared locators therefore look up WebJars with the shared locator of the parent class loader first, and reuse its result
+     * if the {@code pom.properties} of the WebJar resolves to the same location for both class loaders. This way,
+     * the WebJars of a common parent are resolved once and not again for every application, while class loaders loading their own resources first,
+     * e.g. of servlet containers, still find the WebJars they ship themselves.
+     *
+     * <p>Class loaders are referenced weakly, a locator is shared as long as it is in use and does not prevent its class loader
+     * from being garbage collected after the application has been undeployed.
+     *
+     * @param loader The class loader to look up WebJars with
+     * @return The shared locator for the class loader
+     */
+    public static WebJarVersionLocator forClassLoader(final ClassLoader loader) {
+        WebJarVersionLocator locator = shared(loader);
+        if (locator != null) {
+            return locator;
+        }
+        final ClassLoader parentLoader = loader.getParent();
+        // created outside the lock, as creating a locator reads from the class loader
+        final WebJarVersionLocator created = new WebJarVersionLocator(loader, new WebJarCacheDefault(new ConcurrentHashMap<>()), null,
+                parentLoader != null ? forClassLoader(parentLoader) : null);
+        synchronized (Shared.LOCATORS) {
+            locator = shared(loader);
+            if (locator == null) {
+                Shared.LOCATORS.put(loader, new WeakReference<>(created));
+                locator = created;
+            }
+        }
+        return locator;
+    }
+
+    @Nullable
+    private static WebJarVersionLocator shared(final ClassLoader loader) {
+        synchronized (Shared.LOCATORS) {
+            final WeakReference<WebJarVersionLocator> reference = Shared.LOCATORS.get(loader);
+            return reference != null ? reference.get() : null;
+        }
+    }
+
+    /**
+     * Eagerly resolves all official WebJars on the classpath and adds them to the cache.
+     *
+     * <p>By default, WebJars are looked up lazily, so the first lookup of every WebJar has to probe the classpath.
+     * This method instead reads every jar of the classpath once, in parallel, and resolves the versions and group IDs of all WebJars found,
+     * so that later lookups of those WebJars are served from the cache. WebJars not found by the scan are still looked up lazily.
+     *
+     * <p>Versions already in the cache, e.g. from {@code webjars-locator.properties}, are not overridden.
+     * In a GraalVM native image, the jars cannot be read, but the WebJars resolved at image build time are already in the cache.
+     */
+    public void warmUp() {
+        addScanned(WebJarScanner.scan(loader));
+    }
+
+    /**
+     * Creates a locator that persists the resolved WebJars in a snapshot file, to be reused by later starts of the application.
+     *
+     * <p>The snapshot is keyed by a fingerprint of the classpath, built from the locations, sizes and modification times of all jars.
+     * If the snapshot file matches the current classpath, its entries are added to the cache without probing the classpath.
+     * Otherwise, the classpath is scanned like {@link WebJarVersionLocator#warmUp()} does and the snapshot file is replaced.
+     *
+     * <p>Failing to write the snapshot file does not fail the creation of the locator.
+     *
+     * @param snapshot The snapshot file, e.g. in a temporary or cache directory of the application
+     * @return A new locator with all WebJars of the classpath cached
+     */
+    public static WebJarVersionLocator withSnapshot(final Path snapshot) {
+        final WebJarVersionLocator locator = new WebJarVersionLocator();
+        locator.loadSnapshot(snapshot);
+        return locator;
+    }
+
+    void loadSnapshot(final Path snapshot) {
+        final String fingerprint = WebJarScanner.fingerprint(loader);
+        final Properties properties = WebJarSnapshot.read(snapshot, fingerprint);
+        if (properties != null) {
+            // the snapshot covers the whole classpath like a scan
+            addIndexEntries(properties);
+            scanned = true;
+            return;
+        }
+        final Map<String, WebJarScanner.ScannedWebJar> webJars = WebJarScanner.scan(loader);
+        addScanned(webJars);
+        WebJarSnapshot.write(snapshot, fingerprint, webJars);
+    }
+
+    private void addScanned(final Map<String, WebJarScanner.ScannedWebJar> webJars) {
+        scanned = true;
+        for (Map.Entry<String, WebJarScanner.ScannedWebJar> webJar : webJars.entrySet()) {
+            cache.computeIfAbsent(webJar.getKey(), name -> Optional.of(new WebJarInfo(name, webJar.getValue().version, webJar.getValue().groupId)));
+        }
     }
 
     /**
@@ -85,15 +320,142 @@ public class WebJarVersionLocator {
      */
     @Nullable
     public String fullPath(final String webJarName, final String filePath) {
-        final String path = path(webJarName, filePath);
+        final WebJarInfo info = info(webJarName, Operation.FULL_PATH);
 
-        if (notEmpty(path)) {
-            return String.format("%s/%s", WEBJARS_PATH_PREFIX, path);
+        if (info != null && info.fullPathPrefix != null) {
+            if (filePath.startsWith(info.version)) {
+                return WEBJARS_PATH_PREFIX + "/" + webJarName + "/" + filePath;
+            }
+            return info.fullPathPrefix + filePath;
         }
 
         return null;
     }
 
+    /**
+     * Builds the versioned path for a file of a WebJar within the standard WebJar classpath location from a request path, like {@link WebJarVersionLocator#fullPath(String, String)}.
+     *
+     * <p>This method is meant for handlers serving WebJar files, which would otherwise have to split the request path into the WebJar name and the file path.
+     * The request path is not copied: the WebJar name is looked up directly within it, and the results for recently resolved request paths are cached,
+     * so that resolving a request path again does not allocate.
+     *
+     * <pre>{@code
+     * // returns "META-INF/resources/webjars/bootstrap/3.1.1/css/bootstrap.css"
+     * locator.fullPath("/webjars/bootstrap/css/bootstrap.css", "/webjars/".length());
+     * }</pre>
+     *
+     * <p><b>Note:</b> This method does not perform any checks if the resulting path references an existing file.
+     *
+     * @param requestPath The request path, containing {@code <webJarName>/<filePath>} starting at {@code offset}
+     * @param offset      The index of the WebJar name within {@code requestPath}
+     * @return The versioned path to the file in the classpath, if a version has been found, otherwise {@code null}
+     * @see WebJarVersionLocator#fullPath(String, String)
+     */
+    @Nullable
+    public String fullPath(final CharSequence requestPath, final int offset) {
+        return pathResolver.fullPath(requestPath, offset);
+    }
+
+    /**
+     * Builds the versioned path for a file of a WebJar within the standard WebJar classpath location, like {@link WebJarVersionLocator#fullPath(String, String)},
+     * but only if the file exists.
+     *
+     * <p>On first use, all jars of the classpath are read once to build an in-memory index of the files of all WebJars.
+     * Afterward, checking if a file exists does not touch the class loader. Classpath roots that cannot be read this way, e.g. {@code vfs:} URLs
+     * of application servers or the resources of GraalVM native images, are not indexed. If there are any, files missing from the index are looked up
+     * on the class loader instead.
+     *
+     * @param webJarName The name of the WebJar, this is the directory in the standard WebJar classpath location, usually the same as the Maven artifact ID
+     * @param filePath   The path to the file within the WebJar
+     * @return The versioned path to the file in the classpath, if a version has been found and the file exists, otherwise {@code null}
+     * @see WebJarVersionLocator#fullPath(String, String)
+     */
+    @Nullable
+    public String existingFullPath(final String webJarName, final String filePath) {
+        final String fullPath = fullPath(webJarName, filePath);
+
+        if (fullPath == null) {
+            return null;
+        }
+        final WebJarResourceTree tree = resources();
+        if (tree.containsFile(fullPath, WEBJARS_PATH_PREFIX.length() + 1) || !tree.isComplete() && !fullPath.endsWith("/") && hasResource(fullPath)) {
+            return fullPath;
+        }
+
+        return null;
+    }
+
+    /**
+     * Builds the versioned path of the best existing variant of a WebJar file within the standard WebJar classpath location.
+     *
+     * <p>A minified variant is preferred over the file itself, and for each of those a Brotli compressed variant over a gzip compressed variant
+     * over the uncompressed file. Only the given variants are considered, e.g. the encodings accepted by the client. For {@code jquery.js}
+     * and all variants, the candidates are {@code jquery.min.js.br}, {@code jquery.min.js.gz}, {@code jquery.min.js}, {@code jquery.js.br},
+     * {@code jquery.js.gz} and {@code jquery.js}.
+     *
+     * <p>Probing the class loader for the candidates happens only once per file and set of variants, the result is cached.
+     * The number of cached results is limited, so that file paths from untrusted input cannot let the cache grow without bound.
+     *
+     * <pre>{@code
+     * // returns "META-INF/resources/webjars/jquery/3.7.1/jquery.min.js.gz" if it exists
+     * locator.variantFullPath("jquery", "jquery.js", EnumSet.of(Variant.MINIFIED, Variant.GZIP));
+     * }</pre>
+     *
+     * @param webJarName The name of the WebJar
+     * @param filePath   The path to the file within the WebJar
+     * @param accepted   The variants to consider
+     * @return The versioned path to the best existing variant in the classpath, or {@code null} if the WebJar or none of the candidates has been found
+     * @see WebJarVersionLocator#existingFullPath(String, String)
+     */
+    @Nullable
+    public String variantFullPath(final String webJarName, final String filePath, final Set<Variant> accepted) {
+        final String fullPath = fullPath(webJarName, filePath);
+        if (fullPath == null) {
+            return null;
+        }
+
+        int mask = 0;
+        for (Variant variant : accepted) {
+            mask |= 1 << variant.ordinal();
+        }
+        final VariantKey key = new VariantKey(fullPath, mask);
+        Optional<String> variant = variants.get(key);
+        if (variant == null) {
+            variant = Optional.ofNullable(findVariant(fullPath, accepted));
+            variants.put(key, variant);
+        }
+        return variant.orElse(null);
+    }
+
+    @Nullable
+    private String findVariant(final String fullPath, final Set<Variant> accepted) {
+        final String minified = accepted.contains(Variant.MINIFIED) ? minifiedPath(fullPath) : null;
+        for (String candidate : minified != null ? new String[]{minified, fullPath} : new String[]{fullPath}) {
+            for (Variant encoding : ENCODINGS) {
+                if (accepted.contains(encoding) && hasResource(candidate + encoding.extension)) {
+                    return candidate + encoding.extension;
+                }
+            }
+            if (hasResource(candidate)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Inserts {@code .min} before the extension of the file name, unless the file is already minified or has no extension.
+     */
+    @Nullable
+    private static String minifiedPath(final String fullPath) {
+        final int nameStart = fullPath.lastIndexOf('/') + 1;
+        final int extension = fullPath.lastIndexOf('.');
+        if (extension <= nameStart || fullPath.startsWith(Variant.MINIFIED.extension + ".", extension - Variant.MINIFIED.extension.length())) {
+            return null;
+        }
+        return fullPath.substring(0, extension) + Variant.MINIFIED.extension + fullPath.substring(extension);
+    }
+
     /**
      * Builds the versioned path for a file of a WebJar relative to the standard WebJar classpath location (see {@link WebJarVersionLocator#WEBJARS_PATH_PREFIX}).
      *
@@ -122,14 +484,13 @@ public class WebJarVersionLocator {
      */
     @Nullable
     public String path(final String webJarName, final String filePath) {
-        final String version = version(webJarName);
+        final WebJarInfo info = info(webJarName, Operation.PATH);
 
-        if (notEmpty(version)) {
-            if (filePath.startsWith(version)) {
-                return String.format("%s/%s", webJarName, filePath);
-            } else {
-                return String.format("%s/%s/%s", webJarName, version, filePath);
+        if (info != null && info.pathPrefix != null) {
+            if (filePath.startsWith(info.version)) {
+                return webJarName + "/" + filePath;
             }
+            return info.pathPrefix + filePath;
         }
 
         return null;
@@ -149,62 +510,55 @@ public class WebJarVersionLocator {
      */
     @Nullable
     public String version(final String webJarName) {
-        final String cacheKey = CACHE_KEY_PREFIX + webJarName;
-        final Optional<String> optionalVersion = cache.computeIfAbsent(cacheKey, (key) -> {
-            final Properties properties = new Properties();
+        final WebJarInfo info = info(webJarName, Operation.VERSION);
+        return info != null ? info.version : null;
+    }
 
-            // Try NPM-style WebJar first
-            try (InputStream resource = LOADER.getResourceAsStream(PROPERTIES_ROOT + NPM + webJarName + POM_PROPERTIES)) {
-                if (resource != null) {
-                    properties.load(resource);
-                }
-            } catch (IOException ignored) {
-                // ignore and try next format
-            }
+    /**
+     * Looks up the version of a WebJar like {@link WebJarVersionLocator#version(String)}, without blocking on the classpath.
+     *
+     * <p>Cached versions are returned as an already completed future. Otherwise, the classpath is read on a virtual thread on Java 21 and later,
+     * and on a daemon platform thread on older versions.
+     *
+     * @param webJarName The name of the WebJar
+     * @return A future completed with the version, or {@code null} if the WebJar has not been found
+     */
+    public CompletableFuture<@Nullable String> versionAsync(final String webJarName) {
+        if (cache.getIfPresent(webJarName) != null) {
+            return CompletableFuture.completedFuture(version(webJarName));
+        }
+        return CompletableFuture.supplyAsync(() -> version(webJarName), WebJarExecutor.get());
+    }
 
-            // If no properties were loaded from the NPM path, try the PLAIN WebJar path
-            if (properties.isEmpty()) {
-                try (InputStream resource = LOADER.getResourceAsStream(PROPERTIES_ROOT + PLAIN + webJarName + POM_PROPERTIES)) {
-                    if (resource != null) {
-                        properties.load(resource);
-                    }
-                } catch (IOException ignored) {
-                    // ignore
+    /**
+     * Determines the versions of multiple WebJars at once, see {@link WebJarVersionLocator#version(String)}.
+     *
+     * <p>If more than one of the WebJars has not been looked up before, instead of probing the classpath for every WebJar separately,
+     * all jars of the classpath are read once and the cache is populated with all WebJars found, like {@link WebJarVersionLocator#warmUp()} does.
+     *
+     * @param webJarNames The names of the WebJars
+     * @return The versions of the WebJars that have been found, keyed by WebJar name, in the order of {@code webJarNames}
+     * @see WebJarVersionLocator#version(String)
+     */
+    public Map<String, String> versions(final Collection<String> webJarNames) {
+        if (!scanned) {
+            int missing = 0;
+            for (String webJarName : webJarNames) {
+                if (cache.getIfPresent(webJarName) == null && !indexed.containsKey(webJarName) && ++missing > 1) {
+                    addScanned(WebJarScanner.scan(loader));
+                    break;
                 }
             }
+        }
 
-            if (!properties.isEmpty()) {
-                final String version = properties.getProperty("version");
-                // Sometimes a webjar version is not the same as the Maven artifact version
-                if (version != null) {
-                    if (hasResourcePath(webJarName, version)) {
-                        return Optional.of(version);
-                    }
-                    if (version.contains("-")) {
-                        String versionBeforeDash = version.substring(0, version.indexOf("-"));
-                        // some webjars remove the dash and everything after in the path
-                        if (hasResourcePath(webJarName, versionBeforeDash)) {
-                            return Optional.of(versionBeforeDash);
-                        }
-                        // and some webjars remove everything before the dash in the path
-                        else if (hasResourcePath(webJarName, version.substring(version.indexOf("-") + 1))) {
-                            return Optional.of(version);
-                        }
-                    }
-                    if (version.contains("+")) {
-                        // semver build metadata (e.g. "1.14.2+1") is often dropped from the resource path
-                        String versionBeforePlus = version.substring(0, version.indexOf("+"));
-                        if (hasResourcePath(webJarName, versionBeforePlus)) {
-                            return Optional.of(versionBeforePlus);
-                        }
-                    }
-                }
+        final Map<String, String> versions = new LinkedHashMap<>();
+        for (String webJarName : webJarNames) {
+            final String version = version(webJarName);
+            if (version != null) {
+                versions.put(webJarName, version);
             }
-
-            return Optional.empty();
-        });
-
-        return optionalVersion.orElse(null);
+        }
+        return versions;
     }
 
     /**
@@ -221,35 +575,168 @@ public class WebJarVersionLocator {
      */
     @Nullable
     public String groupId(final String webJarName) {
-        final String cacheKey = GROUPID_CACHE_KEY_PREFIX + webJarName;
-        final Optional<String> optionalGroupId = cache.computeIfAbsent(cacheKey, (key) -> {
-            // Try NPM-style WebJar first
-            try (InputStream resource = LOADER.getResourceAsStream(PROPERTIES_ROOT + NPM + webJarName + POM_PROPERTIES)) {
-                if (resource != null) {
-                    return Optional.of("org.webjars.npm");
-                }
-            } catch (IOException ignored) {
-                // ignore
-            }
+        final WebJarInfo info = info(webJarName, Operation.GROUP_ID);
+        if (info == null) {
+            return null;
+        }
+        if (!info.groupIdResolved) {
+            // versions pinned in webjars-locator.properties, concurrent calls may both determine the same group ID
+            info.resolveGroupId(pomGroupId(webJarName));
+        }
+        return info.groupId;
+    }
 
-            // Try PLAIN WebJar
-            try (InputStream resource = LOADER.getResourceAsStream(PROPERTIES_ROOT + PLAIN + webJarName + POM_PROPERTIES)) {
-                if (resource != null) {
-                    return Optional.of("org.webjars");
-                }
-            } catch (IOException ignored) {
-                // ignore
+    @Nullable
+    private WebJarInfo info(final String webJarName, final Operation operation) {
+        if (listener == null) {
+            return cache.computeIfAbsent(webJarName, lookup).orElse(null);
+        }
+        final boolean[] loaded = new boolean[1];
+        final WebJarInfo info = cache.computeIfAbsent(webJarName, name -> {
+            loaded[0] = true;
+            return load(name);
+        }).orElse(null);
+        if (loaded[0]) {
+            listener.cacheMiss(operation, webJarName);
+        } else {
+            listener.cacheHit(operation, webJarName);
+        }
+        return info;
+    }
+
+    private Optional<WebJarInfo> load(final String webJarName) {
+        final WebJarInfo indexedInfo = indexed.get(webJarName);
+        if (indexedInfo != null && indexedInfo.version != null) {
+            // the index holds the Maven version for WebJars using only the part after the dash in their path
+            final String version = resolveVersion(indexedInfo.version, path -> hasResourcePath(webJarName, path));
+            if (version != null) {
+                return Optional.of(version.equals(indexedInfo.version) ? indexedInfo : new WebJarInfo(webJarName, version, indexedInfo.groupId));
             }
+        }
+        if (parent != null) {
+            final WebJarInfo shared = parent.info(webJarName, Operation.VERSION);
+            if (shared != null && shared.version != null && samePomProperties(parent, shared, webJarName)) {
+                return Optional.of(shared);
+            }
+        }
+        if (listener == null) {
+            return loadInfo(webJarName, null);
+        }
+        final long start = System.nanoTime();
+        final @Nullable VersionMatch[] match = new VersionMatch[1];
+        final Optional<WebJarInfo> info = loadInfo(webJarName, match);
+        listener.loaded(webJarName, match[0], System.nanoTime() - start);
+        return info;
+    }
+
+    private Optional<WebJarInfo> loadInfo(final String webJarName, final @Nullable VersionMatch @Nullable [] matchHolder) {
+        // Try NPM-style WebJar first
+        URL pomProperties = resource(PROPERTIES_ROOT + NPM + webJarName + POM_PROPERTIES);
+        Properties properties = loadPomProperties(pomProperties);
+        String groupId = NPM_GROUP_ID;
+
+        // If no properties were loaded from the NPM path, try the PLAIN WebJar path
+        if (properties.isEmpty()) {
+            pomProperties = resource(PROPERTIES_ROOT + PLAIN + webJarName + POM_PROPERTIES);
+            properties = loadPomProperties(pomProperties);
+            groupId = PLAIN_GROUP_ID;
+        }
 
+        if (properties.isEmpty()) {
             return Optional.empty();
-        });
+        }
+
+        final String version = properties.getProperty("version");
+        final VersionMatch match = version != null ? matchVersion(version, path -> hasResourcePath(webJarName, path)) : null;
+        if (matchHolder != null) {
+            matchHolder[0] = match;
+        }
+        final WebJarInfo info = new WebJarInfo(webJarName, version != null && match != null ? resolvedVersion(version, match) : null, groupId);
+        info.pomProperties = pomProperties;
+        return Optional.of(info);
+    }
+
+    /**
+     * Determines the group ID of a WebJar from the location of its {@code pom.properties}, without reading it.
+     */
+    @Nullable
+    private String pomGroupId(final String webJarName) {
+        if (hasResource(PROPERTIES_ROOT + NPM + webJarName + POM_PROPERTIES)) {
+            return NPM_GROUP_ID;
+        }
+        if (hasResource(PROPERTIES_ROOT + PLAIN + webJarName + POM_PROPERTIES)) {
+            return PLAIN_GROUP_ID;
+        }
+        return null;
+    }
+
+    private static Properties loadPomProperties(@Nullable final URL pomProperties) {
+        final Properties properties = new Properties();
+        if (pomProperties == null) {
+            return properties;
+        }
+        try (InputStream resource = pomProperties.openStream()) {
+            properties.load(resource);
+        } catch (IOException ignored) {
+            // ignore and try next format
+        }
+        return properties;
+    }
+
+    /**
+     * Resolves the version used in the resource path of a WebJar from the version declared in its {@code pom.properties}.
+     *
+     * @param version         The Maven artifact version of the WebJar
+     * @param hasResourcePath Checks if a path exists relative to the WebJar resource directory
+     * @return The version used in the resource path, or {@code null} if no matching path exists
+     */
+    @Nullable
+    static String resolveVersion(final String version, final Predicate<String> hasResourcePath) {
+        final VersionMatch match = matchVersion(version, hasResourcePath);
+        return match != null ? resolvedVersion(version, match) : null;
+    }
+
+    @Nullable
+    private static VersionMatch matchVersion(final String version, final Predicate<String> hasResourcePath) {
+        if (hasResourcePath.test(version)) {
+            return VersionMatch.EXACT;
+        }
+        // Sometimes a webjar version is not the same as the Maven artifact version
+        if (version.contains("-")) {
+            // some webjars remove the dash and everything after in the path
+            if (hasResourcePath.test(version.substring(0, version.indexOf("-")))) {
+                return VersionMatch.BEFORE_DASH;
+            }
+            // and some webjars remove everything before the dash in the path
+            else if (hasResourcePath.test(version.substring(version.indexOf("-") + 1))) {
+                return VersionMatch.AFTER_DASH;
+            }
+        }
+        if (version.contains("+")) {
+            // semver build metadata (e.g. "1.14.2+1") is often dropped from the resource path
+            if (hasResourcePath.test(version.substring(0, version.indexOf("+")))) {
+                return VersionMatch.BEFORE_PLUS;
+            }
+        }
+        return null;
+    }
 
-        return optionalGroupId.orElse(null);
+    private static String resolvedVersion(final String version, final VersionMatch match) {
+        // no switch, which would compile to a synthetic class that would have to be initialized at native-image build time as well
+        if (match == VersionMatch.BEFORE_DASH) {
+            return version.substring(0, version.indexOf("-"));
+        }
+        if (match == VersionMatch.BEFORE_PLUS) {
+            return version.substring(0, version.indexOf("+"));
+        }
+        // webjars using the part after the dash in the path are still identified by their full version
+        return version;
     }
 
     private void readLocatorProperties() {
         try {
-            Enumeration<URL> resources = LOADER.getResources(LOCATOR_PROPERTIES);
+            probed(LOCATOR_PROPERTIES);
+            Enumeration<URL> resources = loader.getResources(LOCATOR_PROPERTIES);
             while (resources.hasMoreElements()) {
                 URL resourceUrl = resources.nextElement();
                 try (InputStream resource = resourceUrl.openStream()) {
@@ -267,7 +754,8 @@ public class WebJarVersionLocator {
                         String version = entry.getValue().toString();
                         if (hasResourcePath(webJarName, version)) {
                             // Only add configured versions if their path exists
-                            cache.computeIfAbsent(CACHE_KEY_PREFIX + webJarName, x -> Optional.of(version));
+                            // the group ID is only determined if asked for, custom WebJars have none
+                            cache.computeIfAbsent(webJarName, name -> Optional.of(new WebJarInfo(name, version)));
                         }
                     }
                 }
@@ -277,12 +765,145 @@ public class WebJarVersionLocator {
         }
     }
 
+    private void readIndex() {
+        try {
+            probed(INDEX_PROPERTIES);
+            Enumeration<URL> resources = loader.getResources(INDEX_PROPERTIES);
+            while (resources.hasMoreElements()) {
+                URL resourceUrl = resources.nextElement();
+                try (InputStream resource = resourceUrl.openStream()) {
+                    Properties properties = new Properties();
+                    properties.load(resource);
+                    for (String key : properties.stringPropertyNames()) {
+                        if (key.endsWith(".version")) {
+                            final String webJarName = key.substring(0, key.lastIndexOf(".version"));
+                            // checked on first lookup, as an index may have been built for another classpath
+                            indexed.putIfAbsent(webJarName, new WebJarInfo(webJarName, properties.getProperty(key), properties.getProperty(webJarName + ".groupId")));
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("unable to load webjars index", e);
+        }
+    }
+
+    private void addIndexEntries(final Properties properties) {
+        for (String key : properties.stringPropertyNames()) {
+            if (!key.endsWith(".version")) {
+                continue;
+            }
+            String version = properties.getProperty(key);
+            String groupId = properties.getProperty(key.substring(0, key.lastIndexOf(".version")) + ".groupId");
+            // snapshot and image entries have been resolved for this classpath and are trusted without checking it
+            cache.computeIfAbsent(key.substring(0, key.lastIndexOf(".version")), name -> Optional.of(new WebJarInfo(name, version, groupId)));
+        }
+    }
+
+    /**
+     * Checks if the {@code pom.properties} of a WebJar, looked up like {@link #loadInfo}, resolves to the same location for this and another locator.
+     * The location seen by the other locator is kept with its entry, so that it is looked up at most once.
+     */
+    private boolean samePomProperties(final WebJarVersionLocator other, final WebJarInfo shared, final String webJarName) {
+        final URL pomProperties = pomProperties(webJarName);
+        if (pomProperties == null) {
+            return false;
+        }
+        URL otherPomProperties = shared.pomProperties;
+        if (otherPomProperties == null) {
+            otherPomProperties = other.pomProperties(webJarName);
+            shared.pomProperties = otherPomProperties;
+        }
+        return pomProperties.equals(otherPomProperties);
+    }
+
+    @Nullable
+    private URL pomProperties(final String webJarName) {
+        final URL npm = resource(PROPERTIES_ROOT + NPM + webJarName + POM_PROPERTIES);
+        return npm != null ? npm : resource(PROPERTIES_ROOT + PLAIN + webJarName + POM_PROPERTIES);
+    }
+
+    @Nullable
+    private URL resource(final String resourcePath) {
+        probed(resourcePath);
+        return loader.getResource(resourcePath);
+    }
+
     private boolean hasResourcePath(final String webJarName, final String path) {
-        return LOADER.getResource(WEBJARS_PATH_PREFIX + "/" + webJarName + "/" + path) != null;
+        return hasResource(WEBJARS_PATH_PREFIX + "/" + webJarName + "/" + path);
+    }
+
+    private boolean hasResource(final String resourcePath) {
+        return resource(resourcePath) != null;
+    }
+
+    /**
+     * Lists the files of a WebJar.
+     *
+     * @param webJarName The name of the WebJar
+     * @return The file paths relative to the versioned WebJar directory, empty if the WebJar has not been found
+     */
+    List<String> files(final String webJarName) {
+        final WebJarInfo info = info(webJarName, Operation.FULL_PATH);
+        if (info == null || info.pathPrefix == null) {
+            return Collections.emptyList();
+        }
+        return resources().files(info.pathPrefix.substring(0, info.pathPrefix.length() - 1));
+    }
+
+    ClassLoader loader() {
+        return loader;
+    }
+
+    private WebJarResourceTree resources() {
+        WebJarResourceTree tree = resources;
+        if (tree == null) {
+            synchronized (this) {
+                tree = resources;
+                if (tree == null) {
+                    tree = WebJarScanner.scanResources(loader);
+                    resources = tree;
+                }
+            }
+        }
+        return tree;
+    }
+
+    private void probed(final String resourcePath) {
+        if (listener != null) {
+            listener.classLoaderProbe(resourcePath);
+        }
+    }
+
+    /**
+     * The locators shared per class loader. Unlike this class, it is initialized at native-image run time,
+     * so that the class loaders of the image builder never end up in the image.
+     */
+    private static final class Shared {
+        static final Map<ClassLoader, WeakReference<WebJarVersionLocator>> LOCATORS = new WeakHashMap<>();
     }
 
-    private boolean notEmpty(@Nullable final String str) {
-        return str != null && !str.trim().isEmpty();
+    /**
+     * The key of a cached variant lookup, a file and a bit mask of the accepted variants.
+     */
+    private static final class VariantKey {
+        final String fullPath;
+        final int accepted;
+
+        VariantKey(final String fullPath, final int accepted) {
+            this.fullPath = fullPath;
+            this.accepted = accepted;
+        }
+
+        @Override
+        public boolean equals(@Nullable final Object other) {
+            return other instanceof VariantKey && ((VariantKey) other).accepted == accepted && ((VariantKey) other).fullPath.equals(fullPath);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * fullPath.hashCode() + accepted;
+        }
     }
 
 }
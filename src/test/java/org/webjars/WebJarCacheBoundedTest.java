@@ -0,0 +1,66 @@
+package org.webjars;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class WebJarCacheBoundedTest {
+
+    @Test
+    void misses_are_bounded_and_found_webjars_are_kept() {
+        final WebJarCacheBounded cache = new WebJarCacheBounded(10);
+        final WebJarVersionLocator webJarVersionLocator = new WebJarVersionLocator(cache);
+
+        assertEquals("3.1.1", webJarVersionLocator.version("bootstrap"));
+        for (int i = 0; i < 1000; i++) {
+            assertNull(webJarVersionLocator.version("unknown-" + i));
+        }
+
+        assertEquals(10, cache.misses.size());
+        assertEquals("3.1.1", cache.found.get("bootstrap").get().version);
+        assertEquals("3.2.1", cache.found.get("goodwebjar").get().version);
+    }
+
+    @Test
+    void frequently_read_entries_survive_eviction() {
+        final BoundedCache<String, String> cache = new BoundedCache<>(2);
+        cache.put("a", "a");
+        cache.put("b", "b");
+        assertNotNull(cache.get("a"));
+
+        cache.put("c", "c");
+        assertEquals(2, cache.size());
+        assertEquals("a", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("c", cache.get("c"));
+    }
+
+    @Test
+    void locator_with_bounded_cache() {
+        final WebJarVersionLocator webJarVersionLocator = WebJarVersionLocator.withBoundedCache(100);
+        assertEquals("3.1.1", webJarVersionLocator.version("bootstrap"));
+        assertNull(webJarVersionLocator.version("foo"));
+        assertEquals("3.2.1", webJarVersionLocator.version("goodwebjar"));
+    }
+
+    @Test
+    void weighted_entries_are_bounded_by_total_weight() {
+        final BoundedCache<String, String> cache = new BoundedCache<>(10, String::length);
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        assertNotNull(cache.get("a"));
+
+        cache.put("c", "cccc");
+        assertEquals(8, cache.weight());
+        assertEquals("aaaa", cache.get("a"));
+        assertNull(cache.get("b"));
+
+        // values heavier than the maximum are not cached at all
+        cache.put("d", "ddddddddddd");
+        assertNull(cache.get("d"));
+        assertEquals(8, cache.weight());
+    }
+
+}
@@ -0,0 +1,81 @@
+package org.webjars;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class WebJarCacheDefaultTest {
+
+    private static final int THREADS = 64;
+    private static final int KEYS = 8;
+
+    @Test
+    void concurrent_cold_lookups_load_each_key_once_and_in_parallel() throws Exception {
+        final WebJarCacheDefault cache = new WebJarCacheDefault(new ConcurrentHashMap<>());
+        final AtomicInteger loads = new AtomicInteger();
+        // every key's load waits until the loads of all keys are running, which only succeeds if they are not serialized
+        final CyclicBarrier allKeysLoading = new CyclicBarrier(KEYS);
+        final CountDownLatch start = new CountDownLatch(1);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<Optional<WebJarInfo>>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                final String key = "key-" + (i % KEYS);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cache.computeIfAbsent(key, k -> {
+                        loads.incrementAndGet();
+                        try {
+                            allKeysLoading.await(10, TimeUnit.SECONDS);
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                        return Optional.of(new WebJarInfo(k, k, null));
+                    });
+                }));
+            }
+
+            start.countDown();
+            for (int i = 0; i < THREADS; i++) {
+                assertEquals("key-" + (i % KEYS), results.get(i).get(30, TimeUnit.SECONDS).get().version);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(KEYS, loads.get());
+        assertEquals(KEYS, cache.cache.size());
+    }
+
+    @Test
+    void failed_load_is_not_cached() {
+        final WebJarCacheDefault cache = new WebJarCacheDefault(new ConcurrentHashMap<>());
+
+        assertThrows(IllegalStateException.class, () -> cache.computeIfAbsent("key", k -> {
+            throw new IllegalStateException("failed");
+        }));
+        assertEquals("value", cache.computeIfAbsent("key", k -> Optional.of(new WebJarInfo(k, "value", null))).get().version);
+    }
+
+    @Test
+    void recursive_load_fails() {
+        final WebJarCacheDefault cache = new WebJarCacheDefault(new ConcurrentHashMap<>());
+
+        assertThrows(IllegalStateException.class, () -> cache.computeIfAbsent("key", k -> cache.computeIfAbsent("key", x -> Optional.empty())));
+    }
+
+}
@@ -0,0 +1,143 @@
+package org.webjars;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+class WebJarVersionLocatorConcurrencyTest {
+
+    private static final int TASKS = 5000;
+    private static final int PLATFORM_THREADS = 256;
+    private static final int CALLS = 10_000;
+
+    private static final String[] FOUND = {"bootstrap", "bootswatch-yeti", "goodwebjar", "jquery", "jquery-ui", "qrcodejs", "js-base64", "indexedwebjar"};
+    private static final String[] MISSING = {"foo", "badwebjar", "unknown-1", "unknown-2"};
+
+    // keeps the results of measured calls alive, so that the JIT does not eliminate them
+    private static volatile int sink;
+
+    @Test
+    void concurrent_mixed_lookups_are_consistent_with_the_cache() throws Exception {
+        final WebJarVersionLocator reference = new WebJarVersionLocator();
+        final WebJarCacheDefault cache = new WebJarCacheDefault(new ConcurrentHashMap<>());
+        final WebJarVersionLocator webJarVersionLocator = new WebJarVersionLocator(cache);
+        // some lookups are already cached, others are looked up for the first time by many threads at once
+        webJarVersionLocator.version(FOUND[0]);
+        webJarVersionLocator.version(MISSING[0]);
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = newExecutor();
+        try {
+            final List<Future<Lookup>> lookups = new ArrayList<>();
+            for (int i = 0; i < TASKS; i++) {
+                final String webJarName = i % 3 == 0 ? MISSING[i % MISSING.length] : FOUND[i % FOUND.length];
+                lookups.add(executor.submit(() -> {
+                    start.await();
+                    return new Lookup(webJarName,
+                        webJarVersionLocator.version(webJarName),
+                        webJarVersionLocator.path(webJarName, "file.js"),
+                        webJarVersionLocator.fullPath(webJarName, "file.js"),
+                        webJarVersionLocator.fullPath("/webjars/" + webJarName + "/file.js", "/webjars/".length()));
+                }));
+            }
+            start.countDown();
+
+            for (Future<Lookup> future : lookups) {
+                final Lookup lookup = future.get(60, TimeUnit.SECONDS);
+                final String version = reference.version(lookup.webJarName);
+                assertEquals(version, lookup.version, lookup.webJarName);
+                assertEquals(reference.path(lookup.webJarName, "file.js"), lookup.path, lookup.webJarName);
+                assertEquals(reference.fullPath(lookup.webJarName, "file.js"), lookup.fullPath, lookup.webJarName);
+                assertEquals(lookup.fullPath, lookup.requestFullPath, lookup.webJarName);
+
+                // every thread got the single cached result
+                final Optional<WebJarInfo> cached = cache.cache.get(lookup.webJarName);
+                assertSame(cached.map(info -> info.version).orElse(null), lookup.version, lookup.webJarName);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void cached_lookups_do_not_allocate() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        final WebJarVersionLocator webJarVersionLocator = new WebJarVersionLocator();
+        final StringBuilder requestPath = new StringBuilder("/webjars/bootstrap/js/bootstrap.js");
+        final StringBuilder missingRequestPath = new StringBuilder("/webjars/foo/foo.js");
+
+        assertAllocatesAtMost(16, threads, () -> webJarVersionLocator.version("bootstrap"));
+        assertAllocatesAtMost(16, threads, () -> webJarVersionLocator.version("foo"));
+        assertAllocatesAtMost(16, threads, () -> webJarVersionLocator.groupId("bootstrap"));
+        assertAllocatesAtMost(16, threads, () -> webJarVersionLocator.fullPath(requestPath, "/webjars/".length()));
+        assertAllocatesAtMost(16, threads, () -> webJarVersionLocator.fullPath(missingRequestPath, "/webjars/".length()));
+        // building the path allocates the resulting string and its concatenation buffers only, without relying on the JIT to size them,
+        // so at most four strings of its length, including headers, with two bytes per character
+        final int length = webJarVersionLocator.fullPath("bootstrap", "js/bootstrap.js").length();
+        assertAllocatesAtMost(4 * (2 * length + 48), threads, () -> webJarVersionLocator.fullPath("bootstrap", "js/bootstrap.js"));
+    }
+
+    private static void assertAllocatesAtMost(final long bytesPerCall, final com.sun.management.ThreadMXBean threads, final Supplier<Object> call) {
+        final long thread = Thread.currentThread().getId();
+        int hash = 0;
+        // warm up the caches and let the JIT compile the lookup path
+        for (int i = 0; i < CALLS; i++) {
+            hash += Objects.hashCode(call.get());
+        }
+        final long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < CALLS; i++) {
+            hash += Objects.hashCode(call.get());
+        }
+        final long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        sink = hash;
+        assertTrue(allocated / CALLS <= bytesPerCall, allocated / CALLS + " bytes allocated per call, expected at most " + bytesPerCall);
+    }
+
+    /**
+     * Creates an executor with a virtual thread per task on Java 21 and later, and a pool of platform threads on older versions.
+     */
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(PLATFORM_THREADS);
+        }
+    }
+
+    private static final class Lookup {
+        final String webJarName;
+        final String version;
+        final String path;
+        final String fullPath;
+        final String requestFullPath;
+
+        Lookup(final String webJarName, final String version, final String path, final String fullPath, final String requestFullPath) {
+            this.webJarName = webJarName;
+            this.version = version;
+            this.path = path;
+            this.fullPath = fullPath;
+            this.requestFullPath = requestFullPath;
+        }
+    }
+
+}
@@ -1,16 +1,50 @@
 package org.webjars;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.jspecify.annotations.NullMarked;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
 
 class WebJarVersionLocatorTest {
 
@@ -71,11 +105,11 @@ class WebJarVersionLocatorTest {
 
         @NullMarked
         class InspectableCache implements WebJarCache {
-            final ConcurrentHashMap<String, Optional<String>> cache = new ConcurrentHashMap<>();
+            final ConcurrentHashMap<String, Optional<WebJarInfo>> cache = new ConcurrentHashMap<>();
 
             @Override
-            public Optional<String> computeIfAbsent(String key, Function<String, Optional<String>> function) {
-                Function<String, Optional<String>> inspectableFunction = function.andThen((value) -> {
+            public Optional<WebJarInfo> computeIfAbsent(String key, Function<String, Optional<WebJarInfo>> function) {
+                Function<String, Optional<WebJarInfo>> inspectableFunction = function.andThen((value) -> {
                     if(shouldInspect.get()) {
                         numLookups.incrementAndGet();
                     }
@@ -122,6 +156,27 @@ class WebJarVersionLocatorTest {
         assertEquals("org.webjars", new WebJarVersionLocator().groupId("bootstrap"));
     }
 
+    @Test
+    void groupid_works_for_version_from_locator_properties(@TempDir final Path directory) throws IOException {
+        write(directory.resolve("META-INF/maven/org.webjars/pinned/pom.properties"), "version=2.0.0-1\n");
+        write(directory.resolve("META-INF/resources/webjars/pinned/2.0.0/pinned.js"), "");
+        write(directory.resolve("META-INF/resources/webjars-locator.properties"), "pinned.version=2.0.0\n");
+
+        try (URLClassLoader resources = new URLClassLoader(new URL[]{directory.toUri().toURL()}, null);
+             CountingClassLoader loader = new CountingClassLoader(resources)) {
+            final WebJarVersionLocator webJarVersionLocator = new WebJarVersionLocator(loader);
+            // only the pinned version directory is checked on construction
+            assertEquals(1, loader.probes.get());
+            assertEquals("2.0.0", webJarVersionLocator.version("pinned"));
+            assertEquals(1, loader.probes.get());
+            // the group ID is determined on first use, from the location of the pom.properties
+            assertEquals("org.webjars", webJarVersionLocator.groupId("pinned"));
+            assertEquals(3, loader.probes.get());
+            assertEquals("org.webjars", webJarVersionLocator.groupId("pinned"));
+            assertEquals(3, loader.probes.get());
+        }
+    }
+
     @Test
     void groupid_works_for_npm() {
         assertEquals("org.webjars.npm", new WebJarVersionLocator().groupId("jquery"));
@@ -144,4 +199,500 @@ class WebJarVersionLocatorTest {
         final WebJarVersionLocator webJarVersionLocator = new WebJarVersionLocator();
         assertEquals(WebJarVersionLocator.WEBJARS_PATH_PREFIX + "/jquery-ui/1.14.2/jquery-ui.css", webJarVersionLocator.fullPath("jquery-ui", "jquery-ui.css"));
     }
+
+    @Test
+    void version_is_read_from_index() {
+        assertEquals("4.5.6", new WebJarVersionLocator().version("indexedwebjar"));
+    }
+
+    @Test
+    void groupid_is_read_from_index() {
+        assertEquals("org.webjars.npm", new WebJarVersionLocator().groupId("indexedwebjar"));
+    }
+
+    @Test
+    void index_entry_without_version_directory_is_ignored() {
+        final WebJarVersionLocator webJarVersionLocator = new WebJarVersionLocator();
+        assertEquals("3.1.1", webJarVersionLocator.version("bootstrap"));
+        assertEquals(WebJarVersionLocator.WEBJARS_PATH_PREFIX + "/bootstrap/3.1.1/js/bootstrap.js", webJarVersionLocator.fullPath("bootstrap", "js/bootstrap.js"));
+    }
+
+    @Test
+    void index_entry_is_checked_like_a_lookup(@TempDir final Path directory) throws IOException {
+        // the resource directory only uses the part after the dash of the version
+        write(directory.resolve("META-INF/maven/org.webjars/afterdash/pom.properties"), "version=2015.11.25-abc\n");
+        write(directory.resolve("META-INF/resources/webjars/afterdash/abc/afterdash.js"), "");
+        write(directory.resolve(WebJarVersionLocator.INDEX_PROPERTIES), "afterdash.version=2015.11.25-abc\nafterdash.groupId=org.webjars\n");
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, null)) {
+            final WebJarLocatorStatistics statistics = new WebJarLocatorStatistics();
+            final WebJarVersionLocator webJarVersionLocator = new WebJarVersionLocator(loader, new WebJarCacheDefault(new ConcurrentHashMap<>()), statistics);
+            final long constructorProbes = statistics.getClassLoaderProbes();
+
+            assertEquals("2015.11.25-abc", webJarVersionLocator.version("afterdash"));
+            // the version directory is matched without reading any pom.properties
+            assertEquals(3, statistics.getClassLoaderProbes() - constructorProbes);
+            assertEquals(0L, Arrays.stream(statistics.getLoadLatencyHistogram()).sum());
+        }
+    }
+
+    @Test
+    void index_generator_writes_resolved_webjars() throws IOException {
+        final StringWriter index = new StringWriter();
+        WebJarIndexGenerator.write(WebJarVersionLocatorTest.class.getClassLoader(), index);
+
+        assertTrue(index.toString().contains("bootstrap.version=3.1.1\n"));
+        assertTrue(index.toString().contains("bootstrap.groupId=org.webjars\n"));
+        assertTrue(index.toString().contains("jquery.groupId=org.webjars.npm\n"));
+        assertTrue(index.toString().contains("jquery-ui.version=1.14.2\n"));
+        assertTrue(index.toString().contains("qrcodejs.version=2015.11.25-04f46c6\n"));
+    }
+
+    @Test
+    void warm_up_populates_cache() {
+        final WebJarCacheDefault cache = new WebJarCacheDefault(new ConcurrentHashMap<>());
+        final WebJarVersionLocator webJarVersionLocator = new WebJarVersionLocator(cache);
+        webJarVersionLocator.warmUp();
+
+        assertEquals("3.1.1", cache.cache.get("bootstrap").get().version);
+        assertEquals("org.webjars", cache.cache.get("bootstrap").get().groupId);
+        assertEquals("3.7.1", cache.cache.get("jquery").get().version);
+        assertEquals("org.webjars.npm", cache.cache.get("jquery").get().groupId);
+        assertEquals("1.14.2", cache.cache.get("jquery-ui").get().version);
+        // versions from webjars-locator.properties are kept
+        assertEquals("3.2.1", cache.cache.get("goodwebjar").get().version);
+
+        assertEquals(WebJarVersionLocator.WEBJARS_PATH_PREFIX + "/bootstrap/3.1.1/js/bootstrap.js", webJarVersionLocator.fullPath("bootstrap", "js/bootstrap.js"));
+    }
+
+    @Test
+    void warm_up_resolves_like_lazy_lookup(@TempDir final Path directory) throws IOException {
+        // the NPM-style pom.properties takes precedence, even though its version has no resource directory
+        write(directory.resolve("META-INF/maven/org.webjars.npm/dual/pom.properties"), "version=1.0.0\n");
+        write(directory.resolve("META-INF/maven/org.webjars/dual/pom.properties"), "version=2.0.0\n");
+        write(directory.resolve("META-INF/resources/webjars/dual/2.0.0/dual.js"), "");
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, null)) {
+            final WebJarVersionLocator lazy = new WebJarVersionLocator(loader);
+            final WebJarVersionLocator warm = new WebJarVersionLocator(loader);
+            warm.warmUp();
+
+            assertNull(lazy.version("dual"));
+            assertNull(warm.version("dual"));
+            assertEquals(lazy.groupId("dual"), warm.groupId("dual"));
+        }
+    }
+
+    @Test
+    void scan_follows_classpath_order(@TempDir final Path directory) throws IOException {
+        // a directory like target/classes without a manifest, first on the classpath
+        final Path classes = directory.resolve("classes");
+        write(classes.resolve("META-INF/maven/org.webjars/dup/pom.properties"), "version=2.0\n");
+        write(classes.resolve("META-INF/resources/webjars/dup/2.0/dup.js"), "");
+        final Path jar = directory.resolve("dup.jar");
+        final Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar), manifest)) {
+            out.putNextEntry(new JarEntry("META-INF/maven/org.webjars/dup/pom.properties"));
+            out.write("version=1.0\n".getBytes(StandardCharsets.ISO_8859_1));
+            out.putNextEntry(new JarEntry("META-INF/resources/webjars/dup/1.0/dup.js"));
+        }
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{classes.toUri().toURL(), jar.toUri().toURL()}, null)) {
+            assertEquals("2.0", new WebJarVersionLocator(loader).version("dup"));
+            final WebJarVersionLocator warm = new WebJarVersionLocator(loader);
+            warm.warmUp();
+            assertEquals("2.0", warm.version("dup"));
+            final StringWriter index = new StringWriter();
+            WebJarIndexGenerator.write(loader, index);
+            assertTrue(index.toString().contains("dup.version=2.0"), index.toString());
+        }
+    }
+
+    private static void write(final Path file, final String content) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    void version_and_groupid_share_one_lookup() {
+        final WebJarCacheDefault cache = new WebJarCacheDefault(new ConcurrentHashMap<>());
+        final WebJarVersionLocator webJarVersionLocator = new WebJarVersionLocator(cache);
+
+        assertEquals("org.webjars", webJarVersionLocator.groupId("bootstrap"));
+        final WebJarInfo info = cache.cache.get("bootstrap").get();
+        assertEquals("3.1.1", info.version);
+        assertEquals("bootstrap/3.1.1/", info.pathPrefix);
+        assertEquals(WebJarVersionLocator.WEBJARS_PATH_PREFIX + "/bootstrap/3.1.1/", info.fullPathPrefix);
+        assertEquals("3.1.1", webJarVersionLocator.version("bootstrap"));
+        assertSame(info, cache.cache.get("bootstrap").get());
+    }
+
+    @Test
+    void statistics_count_lookups() {
+        final WebJarLocatorStatistics statistics = new WebJarLocatorStatistics();
+        final WebJarVersionLocator webJarVersionLocator = new WebJarVersionLocator(statistics);
+        final long constructorProbes = statistics.getClassLoaderProbes();
+
+        assertEquals("3.1.1", webJarVersionLocator.version("bootstrap"));
+        assertEquals("bootstrap/3.1.1/js/bootstrap.js", webJarVersionLocator.path("bootstrap", "js/bootstrap.js"));
+        assertEquals("1.14.2", webJarVersionLocator.version("jquery-ui"));
+        assertEquals("3.7.1", webJarVersionLocator.version("jquery"));
+        assertNull(webJarVersionLocator.fullPath("foo", "foo.js"));
+        assertEquals("3.2.1", webJarVersionLocator.version("goodwebjar"));
+
+        assertEquals(4L, statistics.getCacheHits().get("VERSION") + statistics.getCacheMisses().get("VERSION"));
+        assertEquals(1L, statistics.getCacheHits().get("VERSION"));
+        assertEquals(1L, statistics.getCacheHits().get("PATH"));
+        assertEquals(1L, statistics.getCacheMisses().get("FULL_PATH"));
+        assertEquals(1L, statistics.getVersionMatches().get("EXACT"));
+        assertEquals(1L, statistics.getVersionMatches().get("BEFORE_DASH"));
+        assertEquals(1L, statistics.getVersionMatches().get("BEFORE_PLUS"));
+        assertEquals(1L, statistics.getVersionMisses());
+        assertEquals(4L, Arrays.stream(statistics.getLoadLatencyHistogram()).sum());
+        assertTrue(statistics.getClassLoaderProbes() > constructorProbes);
+    }
+
+    @Test
+    void existing_full_path_checks_that_file_exists() {
+        final WebJarVersionLocator webJarVersionLocator = new WebJarVersionLocator();
+
+        assertEquals(WebJarVersionLocator.WEBJARS_PATH_PREFIX + "/bootstrap/3.1.1/js/bootstrap.js", webJarVersionLocator.existingFullPath("bootstrap", "js/bootstrap.js"));
+        assertEquals(WebJarVersionLocator.WEBJARS_PATH_PREFIX + "/bootstrap/3.1.1/css/bootstrap.css", webJarVersionLocator.existingFullPath("bootstrap", "3.1.1/css/bootstrap.css"));
+        assertEquals(WebJarVersionLocator.WEBJARS_PATH_PREFIX + "/goodwebjar/3.2.1/goodwebjar.js", webJarVersionLocator.existingFullPath("goodwebjar", "goodwebjar.js"));
+        assertNull(webJarVersionLocator.existingFullPath("bootstrap", "js/missing.js"));
+        assertNull(webJarVersionLocator.existingFullPath("bootstrap", "js"));
+        assertNull(webJarVersionLocator.existingFullPath("bootstrap", "js/bootstrap.js/"));
+        assertNull(webJarVersionLocator.existingFullPath("foo", "foo.js"));
+    }
+
+    @Test
+    void existing_full_path_probes_roots_that_cannot_be_scanned(@TempDir final Path directory) throws IOException {
+        write(directory.resolve("META-INF/maven/org.webjars/custom-root/pom.properties"), "version=1.0.0\n");
+        write(directory.resolve("META-INF/resources/webjars/custom-root/1.0.0/custom.js"), "");
+
+        try (URLClassLoader files = new URLClassLoader(new URL[]{directory.toUri().toURL()}, null)) {
+            final WebJarVersionLocator webJarVersionLocator = new WebJarVersionLocator(new CustomProtocolClassLoader(files));
+
+            assertEquals(WebJarVersionLocator.WEBJARS_PATH_PREFIX + "/custom-root/1.0.0/custom.js", webJarVersionLocator.existingFullPath("custom-root", "custom.js"));
+            assertNull(webJarVersionLocator.existingFullPath("custom-root", "missing.js"));
+        }
+    }
+
+    /**
+     * Serves the resources of another class loader with URLs of a protocol unknown to the scanner, like the {@code vfs:} URLs of application servers.
+     */
+    private static final class CustomProtocolClassLoader extends ClassLoader {
+        private final ClassLoader resources;
+
+        CustomProtocolClassLoader(final ClassLoader resources) {
+            super(null);
+            this.resources = resources;
+        }
+
+        @Override
+        protected URL findResource(final String name) {
+            final URL resource = resources.getResource(name);
+            return resource != null ? custom(resource) : null;
+        }
+
+        @Override
+        protected Enumeration<URL> findResources(final String name) throws IOException {
+            final List<URL> found = new ArrayList<>();
+            for (URL resource : Collections.list(resources.getResources(name))) {
+                found.add(custom(resource));
+            }
+            return Collections.enumeration(found);
+        }
+
+        private static URL custom(final URL resource) {
+            try {
+                return new URL("custom", null, -1, resource.getPath(), new URLStreamHandler() {
+                    @Override
+                    protected URLConnection openConnection(final URL url) throws IOException {
+                        return resource.openConnection();
+                    }
+                });
+            } catch (MalformedURLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @Test
+    void snapshot_is_written_and_reused(@TempDir final Path directory) throws IOException {
+        final Path snapshot = directory.resolve("webjars.snapshot");
+
+        assertEquals("3.1.1", WebJarVersionLocator.withSnapshot(snapshot).version("bootstrap"));
+        final String written = new String(Files.readAllBytes(snapshot), StandardCharsets.ISO_8859_1);
+        assertTrue(written.startsWith("fingerprint="));
+        assertTrue(written.contains("bootstrap.version=3.1.1\n"));
+
+        // a snapshot matching the classpath is trusted without probing
+        Files.write(snapshot, written.replace("bootstrap.version=3.1.1", "bootstrap.version=9.9.9").getBytes(StandardCharsets.ISO_8859_1));
+        assertEquals("9.9.9", WebJarVersionLocator.withSnapshot(snapshot).version("bootstrap"));
+
+        // a snapshot of another classpath is replaced
+        Files.write(snapshot, "fingerprint=other\nbootstrap.version=9.9.9\n".getBytes(StandardCharsets.ISO_8859_1));
+        assertEquals("3.1.1", WebJarVersionLocator.withSnapshot(snapshot).version("bootstrap"));
+        assertTrue(new String(Files.readAllBytes(snapshot), StandardCharsets.ISO_8859_1).contains("bootstrap.version=3.1.1\n"));
+
+        // a snapshot makes scanning for several unknown WebJars unnecessary
+        try (CountingClassLoader loader = new CountingClassLoader(getClass().getClassLoader())) {
+            new WebJarVersionLocator(loader).loadSnapshot(snapshot);
+            final WebJarVersionLocator webJarVersionLocator = new WebJarVersionLocator(loader);
+            webJarVersionLocator.loadSnapshot(snapshot);
+            final int listings = loader.listings.get();
+            assertEquals(Collections.singletonMap("jquery", "3.7.1"), webJarVersionLocator.versions(Arrays.asList("jquery", "foo", "bar")));
+            assertEquals(listings, loader.listings.get());
+        }
+    }
+
+    @Test
+    void image_index_contains_all_resolved_webjars() {
+        final Properties webJars = WebJarImageIndex.resolve(WebJarVersionLocatorTest.class.getClassLoader());
+
+        assertEquals("3.1.1", webJars.getProperty("bootstrap.version"));
+        assertEquals("org.webjars", webJars.getProperty("bootstrap.groupId"));
+        assertEquals("3.2.1", webJars.getProperty("goodwebjar.version"));
+        assertNull(webJars.getProperty("goodwebjar.groupId"));
+        assertNull(webJars.getProperty("badwebjar.version"));
+        // outside of native images the index is empty
+        assertTrue(WebJarImageIndex.WEBJARS.isEmpty());
+    }
+
+    @Test
+    void resources_of_native_images_are_probed() {
+        System.setProperty("org.graalvm.nativeimage.imagecode", "runtime");
+        try {
+            assertFalse(WebJarScanner.scanResources(WebJarVersionLocatorTest.class.getClassLoader()).isComplete());
+            assertEquals(WebJarVersionLocator.WEBJARS_PATH_PREFIX + "/bootstrap/3.1.1/js/bootstrap.js", new WebJarVersionLocator().existingFullPath("bootstrap", "js/bootstrap.js"));
+        } finally {
+            System.clearProperty("org.graalvm.nativeimage.imagecode");
+        }
+        assertTrue(WebJarScanner.scanResources(WebJarVersionLocatorTest.class.getClassLoader()).isComplete());
+    }
+
+    @Test
+    void versions_are_resolved_in_one_scan() {
+        final WebJarLocatorStatistics statistics = new WebJarLocatorStatistics();
+        final WebJarVersionLocator webJarVersionLocator = new WebJarVersionLocator(statistics);
+
+        final Map<String, String> versions = webJarVersionLocator.versions(Arrays.asList("jquery", "bootstrap", "foo", "goodwebjar", "jquery-ui"));
+
+        assertEquals(Arrays.asList("jquery", "bootstrap", "goodwebjar", "jquery-ui"), new ArrayList<>(versions.keySet()));
+        assertEquals("3.7.1", versions.get("jquery"));
+        assertEquals("3.1.1", versions.get("bootstrap"));
+        assertEquals("3.2.1", versions.get("goodwebjar"));
+        assertEquals("1.14.2", versions.get("jquery-ui"));
+        // only the unknown WebJar has been looked up separately
+        assertEquals(1L, statistics.getCacheMisses().get("VERSION"));
+        assertEquals(4L, statistics.getCacheHits().get("VERSION"));
+    }
+
+    @Test
+    void full_path_from_request_path() {
+        final WebJarVersionLocator webJarVersionLocator = new WebJarVersionLocator();
+        final int offset = "/webjars/".length();
+
+        final String fullPath = webJarVersionLocator.fullPath("/webjars/bootstrap/js/bootstrap.js", offset);
+        assertEquals(WebJarVersionLocator.WEBJARS_PATH_PREFIX + "/bootstrap/3.1.1/js/bootstrap.js", fullPath);
+        // recently resolved paths are cached
+        assertSame(fullPath, webJarVersionLocator.fullPath(new StringBuilder("/webjars/bootstrap/js/bootstrap.js"), offset));
+
+        assertEquals(WebJarVersionLocator.WEBJARS_PATH_PREFIX + "/bootstrap/3.1.1/css/bootstrap.css", webJarVersionLocator.fullPath("/webjars/bootstrap/3.1.1/css/bootstrap.css", offset));
+        assertEquals(WebJarVersionLocator.WEBJARS_PATH_PREFIX + "/bootstrap/3.1.1/css/bootstrap.css", webJarVersionLocator.fullPath("/webjars/bootstrap/css/bootstrap.css", offset));
+        assertEquals(WebJarVersionLocator.WEBJARS_PATH_PREFIX + "/jquery-ui/1.14.2/jquery-ui.css", webJarVersionLocator.fullPath("jquery-ui/jquery-ui.css", 0));
+        assertNull(webJarVersionLocator.fullPath("/webjars/foo/foo.js", offset));
+        assertNull(webJarVersionLocator.fullPath("/webjars/bootstrap", offset));
+        assertNull(webJarVersionLocator.fullPath("/webjars//bootstrap.js", offset));
+    }
+
+    @Test
+    void digests() throws Exception {
+        final WebJarDigests digests = new WebJarDigests(new WebJarVersionLocator(), 10);
+        final String fullPath = WebJarVersionLocator.WEBJARS_PATH_PREFIX + "/goodwebjar/3.2.1/goodwebjar.js";
+        final byte[] content = Files.readAllBytes(Paths.get(getClass().getClassLoader().getResource(fullPath).toURI()));
+
+        final WebJarDigests.Digest digest = digests.digest("goodwebjar", "goodwebjar.js");
+        assertEquals(fullPath, digest.getFullPath());
+        assertEquals(content.length, digest.getSize());
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(content), digest.getSha256());
+        assertEquals('"' + Base64.getUrlEncoder().withoutPadding().encodeToString(digest.getSha256()) + '"', digest.getETag());
+        assertSame(digest, digests.digest("goodwebjar", "3.2.1/goodwebjar.js"));
+
+        assertNull(digests.digest("goodwebjar", "missing.js"));
+        assertNull(digests.digest("foo", "foo.js"));
+
+        final Map<String, WebJarDigests.Digest> precomputed = digests.precompute("goodwebjar");
+        assertEquals(2, precomputed.size());
+        assertSame(digest, precomputed.get(fullPath));
+        assertEquals(Files.size(Paths.get(getClass().getClassLoader().getResource(fullPath + ".gz").toURI())), precomputed.get(fullPath + ".gz").getSize());
+        assertTrue(digests.precompute("foo").isEmpty());
+    }
+
+    @Test
+    void variant_full_path() {
+        final WebJarLocatorStatistics statistics = new WebJarLocatorStatistics();
+        final WebJarVersionLocator webJarVersionLocator = new WebJarVersionLocator(statistics);
+        final String goodWebJar = WebJarVersionLocator.WEBJARS_PATH_PREFIX + "/goodwebjar/3.2.1/goodwebjar.js";
+        final String bootstrap = WebJarVersionLocator.WEBJARS_PATH_PREFIX + "/bootstrap/3.1.1/js/bootstrap";
+
+        assertEquals(goodWebJar + ".gz", webJarVersionLocator.variantFullPath("goodwebjar", "goodwebjar.js", EnumSet.allOf(WebJarVersionLocator.Variant.class)));
+        assertEquals(goodWebJar, webJarVersionLocator.variantFullPath("goodwebjar", "goodwebjar.js", EnumSet.of(WebJarVersionLocator.Variant.BROTLI)));
+        assertEquals(bootstrap + ".min.js", webJarVersionLocator.variantFullPath("bootstrap", "js/bootstrap.js", EnumSet.allOf(WebJarVersionLocator.Variant.class)));
+        assertEquals(bootstrap + ".min.js", webJarVersionLocator.variantFullPath("bootstrap", "js/bootstrap.min.js", EnumSet.of(WebJarVersionLocator.Variant.MINIFIED)));
+        assertEquals(bootstrap + ".js", webJarVersionLocator.variantFullPath("bootstrap", "js/bootstrap.js", EnumSet.noneOf(WebJarVersionLocator.Variant.class)));
+        assertNull(webJarVersionLocator.variantFullPath("bootstrap", "js/missing.js", EnumSet.allOf(WebJarVersionLocator.Variant.class)));
+        assertNull(webJarVersionLocator.variantFullPath("foo", "foo.js", EnumSet.allOf(WebJarVersionLocator.Variant.class)));
+
+        // negotiated variants are cached
+        final long probes = statistics.getClassLoaderProbes();
+        assertEquals(goodWebJar + ".gz", webJarVersionLocator.variantFullPath("goodwebjar", "goodwebjar.js", EnumSet.allOf(WebJarVersionLocator.Variant.class)));
+        assertNull(webJarVersionLocator.variantFullPath("bootstrap", "js/missing.js", EnumSet.allOf(WebJarVersionLocator.Variant.class)));
+        assertEquals(probes, statistics.getClassLoaderProbes());
+    }
+
+    @Test
+    void class_loader() throws Exception {
+        try (URLClassLoader isolated = new URLClassLoader(new URL[0], null)) {
+            assertNull(new WebJarVersionLocator(isolated).version("bootstrap"));
+        }
+        assertEquals("3.1.1", new WebJarVersionLocator(getClass().getClassLoader()).version("bootstrap"));
+    }
+
+    @Test
+    void shared_locator_per_class_loader() throws Exception {
+        final ClassLoader parent = getClass().getClassLoader();
+        try (CountingClassLoader shared = new CountingClassLoader(parent);
+             URLClassLoader application = new URLClassLoader(new URL[0], shared);
+             URLClassLoader other = new URLClassLoader(new URL[0], shared)) {
+            final WebJarVersionLocator webJarVersionLocator = WebJarVersionLocator.forClassLoader(application);
+            assertSame(webJarVersionLocator, WebJarVersionLocator.forClassLoader(application));
+            WebJarVersionLocator.forClassLoader(other);
+
+            // a lookup on its own probes the stale index entry, both pom.properties and the versions 3.1.1-1 and 3.1.1
+            final WebJarVersionLocator unshared = new WebJarVersionLocator(application);
+            shared.probes.set(0);
+            assertEquals("3.1.1", unshared.version("bootstrap"));
+            assertEquals(5, shared.probes.get());
+
+            // WebJars of the parent are resolved once by the parent's shared locator
+            assertEquals("3.1.1", WebJarVersionLocator.forClassLoader(shared).version("bootstrap"));
+            // and reused by the children, which besides the stale index entry only check that they see the same pom.properties
+            shared.probes.set(0);
+            assertEquals("3.1.1", webJarVersionLocator.version("bootstrap"));
+            assertEquals(3, shared.probes.get());
+            assertEquals("3.1.1", WebJarVersionLocator.forClassLoader(other).version("bootstrap"));
+            assertEquals(6, shared.probes.get());
+
+            assertEquals("3.2.1", webJarVersionLocator.version("goodwebjar"));
+            assertNull(webJarVersionLocator.version("foo"));
+        }
+    }
+
+    /**
+     * Counts the resources looked up and listed through it, including those of its children.
+     */
+    private static final class CountingClassLoader extends URLClassLoader {
+        final AtomicInteger probes = new AtomicInteger();
+        final AtomicInteger listings = new AtomicInteger();
+
+        CountingClassLoader(final ClassLoader parent) {
+            super(new URL[0], parent);
+        }
+
+        @Override
+        public URL getResource(final String name) {
+            probes.incrementAndGet();
+            return super.getResource(name);
+        }
+
+        @Override
+        public Enumeration<URL> getResources(final String name) throws IOException {
+            listings.incrementAndGet();
+            return super.getResources(name);
+        }
+    }
+
+    @Test
+    void child_first_class_loader_finds_own_webjars(@TempDir final Path directory) throws Exception {
+        write(directory.resolve("META-INF/maven/org.webjars/bootstrap/pom.properties"), "version=5.0.0\n");
+        write(directory.resolve(WebJarVersionLocator.WEBJARS_PATH_PREFIX + "/bootstrap/5.0.0/js/bootstrap.js"), "");
+
+        try (URLClassLoader application = new ChildFirstClassLoader(new URL[]{directory.toUri().toURL()}, getClass().getClassLoader())) {
+            assertEquals("5.0.0", new WebJarVersionLocator(application).version("bootstrap"));
+            assertEquals("5.0.0", WebJarVersionLocator.forClassLoader(application).version("bootstrap"));
+            // WebJars only provided by the parent are still shared
+            assertSame(WebJarVersionLocator.forClassLoader(getClass().getClassLoader()).version("goodwebjar"),
+                    WebJarVersionLocator.forClassLoader(application).version("goodwebjar"));
+        }
+    }
+
+    /**
+     * Loads resources from its own URLs before those of its parent, like the web application class loaders of servlet containers.
+     */
+    private static final class ChildFirstClassLoader extends URLClassLoader {
+
+        ChildFirstClassLoader(final URL[] urls, final ClassLoader parent) {
+            super(urls, parent);
+        }
+
+        @Override
+        public URL getResource(final String name) {
+            final URL resource = findResource(name);
+            return resource != null ? resource : super.getResource(name);
+        }
+    }
+
+    @Test
+    void asset_cache() throws Exception {
+        final String fullPath = WebJarVersionLocator.WEBJARS_PATH_PREFIX + "/goodwebjar/3.2.1/goodwebjar.js";
+        final byte[] content = Files.readAllBytes(Paths.get(getClass().getClassLoader().getResource(fullPath).toURI()));
+
+        for (boolean direct : new boolean[]{false, true}) {
+            final WebJarAssetCache assets = new WebJarAssetCache(new WebJarVersionLocator(), 1024 * 1024, content.length, direct);
+
+            final ByteBuffer buffer = assets.content("goodwebjar", "goodwebjar.js");
+            assertTrue(buffer.isReadOnly());
+            assertEquals(direct, buffer.isDirect());
+            final byte[] read = new byte[buffer.remaining()];
+            buffer.get(read);
+            assertArrayEquals(content, read);
+            // every lookup gets its own view of the cached content
+            assertEquals(content.length, assets.content("goodwebjar", "goodwebjar.js").remaining());
+
+            assertNull(assets.content("goodwebjar", "missing.js"));
+            assertNull(assets.content("foo", "foo.js"));
+            assertNull(assets.content("bootstrap", "js/bootstrap.js"));
+        }
+
+        final WebJarAssetCache small = new WebJarAssetCache(new WebJarVersionLocator(), 1024, 1024 * 1024, false);
+        assertNotNull(small.content("goodwebjar", "goodwebjar.js"));
+        assertNotNull(small.content("bootstrap", "css/bootstrap.css"));
+        assertTrue(small.weight() <= 1024);
+    }
+
+    @Test
+    void async() throws Exception {
+        final WebJarVersionLocator webJarVersionLocator = WebJarVersionLocator.createAsync(true).get(30, TimeUnit.SECONDS);
+        final CompletableFuture<String> warmedUp = webJarVersionLocator.versionAsync("bootstrap");
+        assertTrue(warmedUp.isDone());
+        assertEquals("3.1.1", warmedUp.get());
+
+        final WebJarVersionLocator lazy = WebJarVersionLocator.createAsync(false).get(30, TimeUnit.SECONDS);
+        assertEquals("3.1.1", lazy.versionAsync("bootstrap").get(30, TimeUnit.SECONDS));
+        assertTrue(lazy.versionAsync("bootstrap").isDone());
+        assertNull(lazy.versionAsync("foo").get(30, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void versions_and_group_ids_are_shared() {
+        final WebJarVersionLocator webJarVersionLocator = new WebJarVersionLocator();
+
+        assertSame(webJarVersionLocator.version("bootstrap"), webJarVersionLocator.version("bootswatch-yeti"));
+        assertSame(webJarVersionLocator.groupId("bootstrap"), webJarVersionLocator.groupId("bootswatch-yeti"));
+        // read from the index
+        assertSame(webJarVersionLocator.groupId("jquery"), webJarVersionLocator.groupId("indexedwebjar"));
+    }
 }
@@ -0,0 +1 @@
+// Indexed WebJar content